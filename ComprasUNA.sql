@@ -75,6 +75,22 @@ CREATE TABLE bank (
     CONSTRAINT CK_bank_exp_year CHECK (exp_year BETWEEN 2000 AND 2100)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
+-- el cobro es un UPDATE condicional por número de tarjeta (una sola fila)
+CREATE UNIQUE INDEX UX_bank_card ON bank(card_number);
+
+-- Libro mayor: un registro por cada débito, escrito en la misma transacción que el cobro
+CREATE TABLE bank_ledger (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    bank_id INT NOT NULL,
+    amount DECIMAL(10,2) NOT NULL,
+    balance_after DECIMAL(10,2) NOT NULL,
+    reference VARCHAR(50),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (bank_id) REFERENCES bank(id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+CREATE INDEX IX_ledger_bank ON bank_ledger(bank_id, created_at);
+
 -- 30
 
 CREATE INDEX IX_address_user ON user_address(user_id);
@@ -100,9 +116,14 @@ CREATE TABLE products (
     stock_quantity INT DEFAULT 0,
     image_url VARCHAR(255),
     is_active BOOLEAN DEFAULT TRUE,
+    -- versión del precio y refresco incremental de la caché de tarjetas
+    updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
     FOREIGN KEY (category_id) REFERENCES categories(id) ON DELETE CASCADE,
     INDEX idx_product_category (category_id),
-    INDEX idx_product_active (is_active)
+    INDEX idx_product_active (is_active),
+    -- listado paginado por categoría: WHERE category_id = ? AND is_active AND id > ? ORDER BY id
+    INDEX idx_product_category_active (category_id, is_active),
+    INDEX idx_product_updated (updated_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
 
 -- 42
@@ -1,8 +1,13 @@
 package com.tienda.app.controller;
 
-import com.tienda.app.model.Articulo;
-import com.tienda.app.model.CarritoItem;
+import com.tienda.app.model.ArticuloTarjeta;
+import com.tienda.app.model.Carrito;
+import com.tienda.app.model.PaginaCursor;
+import com.tienda.app.model.PrecioVigente;
+import com.tienda.app.model.UsuarioSesion;
 import com.tienda.app.service.ArticuloService;
+import com.tienda.app.service.CarritoPersistenteService;
+import com.tienda.app.service.PreciosService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -11,30 +16,45 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import java.util.ArrayList;
-import java.util.List;
-
 @Controller
 @RequestMapping("/articulos")
 public class ArticuloController {
 
     private final ArticuloService articuloService;
+    private final CarritoPersistenteService carritoPersistenteService;
+    private final PreciosService preciosService;
 
-    // Constructor: inyecta el servicio de Articulos en el controlador
-    public ArticuloController(ArticuloService articuloService) {
+    // Constructor: inyecta el servicio de Articulos, el del carrito guardado y el de precios en el controlador
+    public ArticuloController(ArticuloService articuloService,
+                              CarritoPersistenteService carritoPersistenteService,
+                              PreciosService preciosService) {
         this.articuloService = articuloService;
+        this.carritoPersistenteService = carritoPersistenteService;
+        this.preciosService = preciosService;
     }
 
     /**
-     * Método GET para mostrar el listado de artículos.
-     * - Recupera todos los artículos disponibles usando el servicio.
-     * - Agrega la lista al modelo para que se pueda mostrar en la vista.
+     * Método GET para mostrar el listado de artículos activos, por páginas.
+     * @param categoria id de la categoría a filtrar (opcional).
+     * @param despues   cursor: último id mostrado en la página anterior (opcional).
+     * @param tamano    cantidad de artículos por página (máximo {@value ArticuloService#TAMANO_PAGINA_MAXIMO}).
+     *
+     * - Recupera solo la página pedida usando el servicio (nunca toda la tabla).
+     * - Agrega la página y el cursor de la siguiente al modelo.
      * - Retorna la vista "articulos.html".
      */
     @GetMapping
-    public String listarArticulos(Model model) {
-        model.addAttribute("articulos", articuloService.listarTodos());
-        return "pokedex";
+    public String listarArticulos(@RequestParam(required = false) Integer categoria,
+                                  @RequestParam(required = false) Integer despues,
+                                  @RequestParam(defaultValue = "24") int tamano,
+                                  Model model) {
+        PaginaCursor<ArticuloTarjeta> pagina = articuloService.listarPagina(categoria, despues, tamano);
+        model.addAttribute("title", "Articulos");
+        model.addAttribute("articulos", pagina.elementos());
+        model.addAttribute("siguiente", pagina.siguiente());
+        model.addAttribute("categoria", categoria);
+        model.addAttribute("tamano", tamano);
+        return "articulos";
     }
 
     /**
@@ -43,10 +63,10 @@ public class ArticuloController {
      * @param session   sesión HTTP donde se guarda la lista de artículos del carrito.
      *
      * Flujo:
-     * 1. Busca el artículo por su ID en la base de datos.
+     * 1. Busca nombre y precio vigentes del artículo en el servidor (caché de tarjetas).
      * 2. Si no existe, redirige nuevamente a la lista de artículos.
-     * 3. Recupera (o crea) la lista de productos del carrito desde la sesión.
-     * 4. Recorre el carrito para verificar si el artículo ya existe:
+     * 3. Recupera (o crea) el {@link Carrito} desde la sesión.
+     * 4. Agrega el artículo (búsqueda directa por id, sin recorrer el carrito):
      *    - Si ya está, simplemente incrementa la cantidad.
      *    - Si no está, crea un nuevo CarritoItem con cantidad 1 y lo agrega.
      * 5. Guarda nuevamente el carrito en la sesión.
@@ -55,33 +75,21 @@ public class ArticuloController {
     @PostMapping("/agregar")
     public String agregarAlCarrito(@RequestParam Integer id,
                                    HttpSession session) {
-        // Buscar artículo por ID
-        Articulo articulo = articuloService.buscarPorId(id).orElse(null);
+        // Buscar nombre y precio vigentes del artículo
+        PrecioVigente articulo = preciosService.resolver(id).orElse(null);
         if (articulo == null) return "redirect:/articulos";
 
         // Recuperar el carrito de la sesión, si no existe se crea uno nuevo
-        List<CarritoItem> carrito = (List<CarritoItem>) session.getAttribute("carrito");
-        if (carrito == null) carrito = new ArrayList<>();
+        Carrito carrito = (Carrito) session.getAttribute("carrito");
+        if (carrito == null) carrito = new Carrito();
 
-        boolean existe = false;
-        // Verificar si el artículo ya está en el carrito
-        for (CarritoItem item : carrito) {
-            if (item.getProductoId().equals(articulo.getId())) {
-                // Si ya existe, aumentar cantidad
-                item.setCantidad(item.getCantidad() + 1);
-                existe = true;
-                break;
-            }
-        }
+        // Si ya está en el carrito se suma 1 a la cantidad; si no, se agrega como nuevo
+        carrito.agregar(articulo, 1);
 
-        // Si no estaba en el carrito, se agrega como nuevo
-        if (!existe) {
-            carrito.add(new CarritoItem(
-                    articulo.getId(),
-                    articulo.getName(),
-                    articulo.getPrice(),
-                    1
-            ));
+        // Con sesión iniciada, el cambio también va al carrito guardado del usuario
+        UsuarioSesion usuario = (UsuarioSesion) session.getAttribute("usuarioLog");
+        if (usuario != null) {
+            carritoPersistenteService.registrar(usuario.getId(), id, carrito.getItem(id));
         }
 
         // Guardar el carrito actualizado en la sesión
@@ -0,0 +1,166 @@
+package com.tienda.app.controller;
+
+import com.tienda.app.model.CambioCarrito;
+import com.tienda.app.model.Carrito;
+import com.tienda.app.model.LineaCarrito;
+import com.tienda.app.model.PrecioVigente;
+import com.tienda.app.model.RespuestaCarrito;
+import com.tienda.app.model.UsuarioSesion;
+import com.tienda.app.service.CarritoPersistenteService;
+import com.tienda.app.service.PreciosService;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * API JSON del carrito, paralela a {@link CarritoController}.
+ *
+ * Cada cambio responde solo con las líneas afectadas y el nuevo total, en lugar
+ * de redirigir a /carrito (POST + 302 + GET + render completo de la página).
+ *
+ * Endpoints:
+ * - GET    /api/carrito      → carrito completo.
+ * - POST   /api/carrito      → aplica un {@link CambioCarrito}.
+ * - POST   /api/carrito/lote → aplica varios cambios en una sola petición.
+ * - DELETE /api/carrito      → vacía el carrito.
+ *
+ * Al agregar, el nombre y el precio los resuelve el servidor
+ * ({@link PreciosService}), nunca del cliente.
+ *
+ * Los bloques synchronized sobre el carrito solo ordenan peticiones simultáneas
+ * con la sesión en memoria de Tomcat, donde todas ven el mismo objeto. Con el
+ * almacén externo de sesiones cada petición trabaja sobre su propia copia y la
+ * última en terminar gana: el cliente debe esperar cada respuesta antes del
+ * siguiente cambio, o juntarlos en /api/carrito/lote.
+ */
+@RestController
+@RequestMapping("/api/carrito")
+public class CarritoApiController {
+
+    /** Máximo de cambios aceptados en un lote. */
+    private static final int MAX_CAMBIOS_POR_LOTE = 100;
+
+    private final PreciosService preciosService;
+    private final CarritoPersistenteService carritoPersistenteService;
+
+    public CarritoApiController(PreciosService preciosService,
+                                CarritoPersistenteService carritoPersistenteService) {
+        this.preciosService = preciosService;
+        this.carritoPersistenteService = carritoPersistenteService;
+    }
+
+    @GetMapping
+    public RespuestaCarrito ver(HttpSession session) {
+        Carrito carrito = carrito(session);
+        synchronized (carrito) {
+            List<LineaCarrito> lineas = carrito.getItems().stream()
+                    .map(item -> LineaCarrito.de(item.getProductoId(), item))
+                    .toList();
+            return new RespuestaCarrito(lineas, carrito.getTotal(), lineas.size());
+        }
+    }
+
+    @PostMapping
+    public RespuestaCarrito aplicar(@RequestBody CambioCarrito cambio, HttpSession session) {
+        return aplicarLote(List.of(cambio), session);
+    }
+
+    /**
+     * Aplica los cambios en orden. Se validan todos antes de aplicar el primero:
+     * si alguno es inválido no se aplica ninguno.
+     */
+    @PostMapping("/lote")
+    public RespuestaCarrito aplicarLote(@RequestBody List<CambioCarrito> cambios, HttpSession session) {
+        if (cambios.isEmpty() || cambios.size() > MAX_CAMBIOS_POR_LOTE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Se esperan entre 1 y " + MAX_CAMBIOS_POR_LOTE + " cambios");
+        }
+        Map<Integer, PrecioVigente> productos = validar(cambios);
+
+        Carrito carrito = carrito(session);
+        Set<Integer> afectados = new LinkedHashSet<>();
+        synchronized (carrito) {
+            for (CambioCarrito cambio : cambios) {
+                Integer id = cambio.productoId();
+                switch (cambio.operacion()) {
+                    case "agregar" -> carrito.agregar(productos.get(id), cantidad(cambio, 1));
+                    case "actualizar" -> carrito.actualizarCantidad(id, cantidad(cambio, 0));
+                    default -> carrito.eliminar(id);
+                }
+                afectados.add(id);
+            }
+            List<LineaCarrito> lineas = afectados.stream().map(id -> LineaCarrito.de(id, carrito.getItem(id))).toList();
+            persistir(session, carrito, afectados);
+            session.setAttribute("carrito", carrito);
+            return new RespuestaCarrito(lineas, carrito.getTotal(), carrito.getItems().size());
+        }
+    }
+
+    @DeleteMapping
+    public RespuestaCarrito vaciar(HttpSession session) {
+        session.removeAttribute("carrito");
+        UsuarioSesion usuario = (UsuarioSesion) session.getAttribute("usuarioLog");
+        if (usuario != null) carritoPersistenteService.vaciar(usuario.getId());
+        return new RespuestaCarrito(List.of(), BigDecimal.valueOf(0, 2), 0);
+    }
+
+    /**
+     * Revisa operación, id y cantidad de cada cambio y busca los productos a agregar.
+     */
+    private Map<Integer, PrecioVigente> validar(List<CambioCarrito> cambios) {
+        Map<Integer, PrecioVigente> productos = new HashMap<>();
+        for (CambioCarrito cambio : cambios) {
+            if (cambio.productoId() == null || cambio.operacion() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Falta operacion o productoId");
+            }
+            switch (cambio.operacion()) {
+                case "agregar" -> {
+                    if (cantidad(cambio, 1) <= 0) {
+                        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La cantidad a agregar debe ser positiva");
+                    }
+                    PrecioVigente producto = preciosService.resolver(cambio.productoId())
+                            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                                    "Producto no encontrado: " + cambio.productoId()));
+                    productos.put(cambio.productoId(), producto);
+                }
+                case "actualizar", "eliminar" -> { }
+                default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Operación desconocida: " + cambio.operacion());
+            }
+        }
+        return productos;
+    }
+
+    private static int cantidad(CambioCarrito cambio, int porDefecto) {
+        return cambio.cantidad() == null ? porDefecto : cambio.cantidad();
+    }
+
+    private static Carrito carrito(HttpSession session) {
+        Carrito carrito = (Carrito) session.getAttribute("carrito");
+        return carrito != null ? carrito : new Carrito();
+    }
+
+    /**
+     * Con sesión iniciada, registra las líneas afectadas en el carrito guardado del usuario.
+     */
+    private void persistir(HttpSession session, Carrito carrito, Set<Integer> afectados) {
+        UsuarioSesion usuario = (UsuarioSesion) session.getAttribute("usuarioLog");
+        if (usuario == null) return;
+        for (Integer id : afectados) {
+            carritoPersistenteService.registrar(usuario.getId(), id, carrito.getItem(id));
+        }
+    }
+}
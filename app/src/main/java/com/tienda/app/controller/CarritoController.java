@@ -2,34 +2,39 @@ package com.tienda.app.controller;
 
 import com.tienda.app.model.*;
 import com.tienda.app.repository.BankRepository;
-import com.tienda.app.service.BankService;
 import com.tienda.app.service.BillingMethodService;
-import com.tienda.app.service.UserAddressService;
-import com.tienda.app.service.UserInformationService;
+import com.tienda.app.service.CarritoPersistenteService;
+import com.tienda.app.service.CompraService;
+import com.tienda.app.service.PerfilService;
+import com.tienda.app.service.PreciosService;
+import com.tienda.app.utility.CompraRechazadaException;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/carrito")
 public class CarritoController {
-    public CarritoController(UserInformationService userInformationService, UserAddressService userAddressService,
-                             BillingMethodService billingMethodService, BankService bankService) {
-        this.userInformationService = userInformationService;
-        this.userAddressService = userAddressService;
+    public CarritoController(PerfilService perfilService,
+                             BillingMethodService billingMethodService, CompraService compraService,
+                             CarritoPersistenteService carritoPersistenteService, PreciosService preciosService) {
+        this.perfilService = perfilService;
         this.billingMethodService = billingMethodService;
-        this.bankService = bankService;
+        this.compraService = compraService;
+        this.carritoPersistenteService = carritoPersistenteService;
+        this.preciosService = preciosService;
     }
 
-    private final UserInformationService userInformationService;
-    private final UserAddressService userAddressService;
+    private final PerfilService perfilService;
     private final BillingMethodService  billingMethodService;
-    private final BankService bankService;
+    private final CompraService compraService;
+    private final CarritoPersistenteService carritoPersistenteService;
+    private final PreciosService preciosService;
 
 
 
@@ -37,37 +42,27 @@ public class CarritoController {
     public String verCarrito(HttpSession session, Model model) {
         model.addAttribute("tittle","Carrito");
 
-        List<CarritoItem> carrito = (List<CarritoItem>) session.getAttribute("carrito");
-        if (carrito == null) carrito = new ArrayList<>();
-
-        BigDecimal total = carrito.stream().map(CarritoItem::getSubtotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+        Carrito carrito = (Carrito) session.getAttribute("carrito");
+        if (carrito == null) carrito = new Carrito();
 
         model.addAttribute("title", "Carrito");
-        model.addAttribute("carrito", carrito);
-        model.addAttribute("total", total);
+        model.addAttribute("carrito", carrito.getItems());
+        model.addAttribute("total", carrito.getTotal());
         return "carrito"; // carrito.html
     }
 
+    //El nombre y el precio los resuelve el servidor, nunca salen del formulario
     @PostMapping("/agregar")
     public String agregarAlCarrito(@RequestParam Integer id,
-                                   @RequestParam String nombre,
-                                   @RequestParam BigDecimal precio,
                                    HttpSession session) {
-        List<CarritoItem> carrito = (List<CarritoItem>) session.getAttribute("carrito");
-        if (carrito == null) carrito = new ArrayList<>();
-
-        boolean existe = false;
-        for (CarritoItem item : carrito) {
-            if (item.getProductoId().equals(id)) {
-                item.setCantidad(item.getCantidad() + 1);
-                existe = true;
-                break;
-            }
-        }
+        PrecioVigente precio = preciosService.resolver(id).orElse(null);
+        if (precio == null) return "redirect:/carrito";
 
-        if (!existe) {
-            carrito.add(new CarritoItem(id, nombre, precio, 1));
-        }
+        Carrito carrito = (Carrito) session.getAttribute("carrito");
+        if (carrito == null) carrito = new Carrito();
+
+        carrito.agregar(precio, 1);
+        persistirLinea(session, carrito, id);
 
         session.setAttribute("carrito", carrito);
         return "redirect:/carrito";
@@ -77,19 +72,10 @@ public class CarritoController {
     public String actualizarCantidad(@RequestParam Integer id,
                                      @RequestParam int cantidad,
                                      HttpSession session) {
-        List<CarritoItem> carrito = (List<CarritoItem>) session.getAttribute("carrito");
+        Carrito carrito = (Carrito) session.getAttribute("carrito");
         if (carrito != null) {
-            carrito.removeIf(item -> {
-                if (item.getProductoId().equals(id)) {
-                    if (cantidad > 0) {
-                        item.setCantidad(cantidad);
-                        return false;
-                    } else {
-                        return true;
-                    }
-                }
-                return false;
-            });
+            carrito.actualizarCantidad(id, cantidad);
+            persistirLinea(session, carrito, id);
             session.setAttribute("carrito", carrito);
         }
         return "redirect:/carrito";
@@ -97,9 +83,10 @@ public class CarritoController {
 
     @PostMapping("/eliminar")
     public String eliminarDelCarrito(@RequestParam Integer id, HttpSession session) {
-        List<CarritoItem> carrito = (List<CarritoItem>) session.getAttribute("carrito");
+        Carrito carrito = (Carrito) session.getAttribute("carrito");
         if (carrito != null) {
-            carrito.removeIf(item -> item.getProductoId().equals(id));
+            carrito.eliminar(id);
+            persistirLinea(session, carrito, id);
             session.setAttribute("carrito", carrito);
         }
         return "redirect:/carrito";
@@ -108,13 +95,15 @@ public class CarritoController {
     @PostMapping("/vaciar")
     public String vaciarCarrito(HttpSession session) {
         session.removeAttribute("carrito");
+        UsuarioSesion usuario = (UsuarioSesion) session.getAttribute("usuarioLog");
+        if (usuario != null) carritoPersistenteService.vaciar(usuario.getId());
         return "redirect:/carrito";
     }
 
     //Aqui Beto!!¡¡
     @GetMapping("/finalizar")
     public String mostrarFormularioFinalizar(HttpSession session, Model model) {
-        List<CarritoItem> carrito = (List<CarritoItem>) session.getAttribute("carrito");
+        Carrito carrito = (Carrito) session.getAttribute("carrito");
 
         if (carrito == null || carrito.isEmpty()) {
             model.addAttribute("error", "Tu carrito está vacío.");
@@ -122,23 +111,24 @@ public class CarritoController {
         }
 
         //Caso no haya iniciado sesion, no se puede comprar!!¡¡
-        if(session.getAttribute("usuarioLog") == null){
+        UsuarioSesion usuario = (UsuarioSesion) session.getAttribute("usuarioLog");
+        if (usuario == null) {
             return "redirect:/credenciales/ingresar";
         }
-        UserCredentialModel userCredentialModel = (UserCredentialModel) session.getAttribute("usuarioLog");
-        UserInformation userInformation = userInformationService.getUserInformationById(userCredentialModel.getId());
-        UserAddress userAddress = userAddressService.getUserAddressByUserId(userCredentialModel.getId());
-        if (userInformation == null){//si no se encontro informacion personal y direccion el usuario esta obligado a crearlos
+        if (!usuario.isPerfilCompleto()) {//si no tiene informacion personal y direccion el usuario esta obligado a crearlos
             return "redirect:/pagina_personal/pagina_datosPersonales";
         }
-        List<BillingMethod> billingMethodList = billingMethodService.findAllByUserId(userInformation.getId());
+        //Perfil desde la caché: sin consultas a la base de datos si ya se cargó
+        PerfilUsuario perfil = perfilService.obtener(usuario.getId());
 
-        model.addAttribute("usuarioInfo", userInformation);
-        model.addAttribute("usuarioAddr", userAddress);
+        model.addAttribute("usuarioInfo", perfil.informacion());
+        model.addAttribute("usuarioAddr", perfil.direccion());
 
-        model.addAttribute("carrito", carrito);
-        model.addAttribute("checkout", new Checkout());
-        model.addAttribute("billingMethodList", billingMethodList);
+        model.addAttribute("carrito", carrito.getItems());
+        Checkout checkout = new Checkout();
+        checkout.setClaveIdempotencia(UUID.randomUUID().toString());
+        model.addAttribute("checkout", checkout);
+        model.addAttribute("billingMethodList", perfil.tarjetas());
 
         //Verificando si hubo error en una transaccion pasada(falta de dinero)
         String errorDinero = (String) session.getAttribute("errorDinero");
@@ -146,6 +136,21 @@ public class CarritoController {
             model.addAttribute("errorDinero", errorDinero);
             session.removeAttribute("errorDinero"); // <- lo borramos para que no se repita
         }
+        String errorPrecio = (String) session.getAttribute("errorPrecio");
+        if (errorPrecio != null) {
+            model.addAttribute("errorPrecio", errorPrecio);
+            session.removeAttribute("errorPrecio");
+        }
+        String errorStock = (String) session.getAttribute("errorStock");
+        if (errorStock != null) {
+            model.addAttribute("errorStock", errorStock);
+            session.removeAttribute("errorStock");
+        }
+        String errorCompra = (String) session.getAttribute("errorCompra");
+        if (errorCompra != null) {
+            model.addAttribute("errorCompra", errorCompra);
+            session.removeAttribute("errorCompra");
+        }
         return "checkout"; // checkout.html
     }
 
@@ -154,32 +159,85 @@ public class CarritoController {
     public String procesarCompra(@ModelAttribute("checkout") Checkout checkout,
                                  HttpSession session,
                                  Model model) {
-        List<CarritoItem> carrito = (List<CarritoItem>) session.getAttribute("carrito");
+        UsuarioSesion usuario = (UsuarioSesion) session.getAttribute("usuarioLog");
+        if (usuario == null) {
+            return "redirect:/credenciales/ingresar";
+        }
+        if (checkout.getClaveIdempotencia() == null || checkout.getClaveIdempotencia().isBlank()) {
+            checkout.setClaveIdempotencia(UUID.randomUUID().toString());
+        }
+        Carrito carrito = (Carrito) session.getAttribute("carrito");
 
         if (carrito == null || carrito.isEmpty()) {
+            //Reenvío de un formulario ya procesado (recarga o doble clic): se muestra la misma orden
+            ResultadoCompra anterior = compraService.buscar(checkout.getClaveIdempotencia(), usuario.getId()).orElse(null);
+            if (anterior != null) {
+                return confirmar(checkout, null, List.of(), anterior, model);
+            }
             model.addAttribute("error", "Tu carrito está vacío.");
             return "carrito";
         }
 
-        BillingMethod billingMethod = billingMethodService.findById(checkout.getMetodoPago());
-        BigDecimal total = carrito.stream().map(CarritoItem::getSubtotal).reduce(BigDecimal.ZERO, BigDecimal::add);
-        if(!bankService.ejecutarTransaccion(billingMethod, total)){ //Caso la operacion no fue exitosa
-            session.setAttribute("errorDinero", "No se pudo realizar la compra falta dinero o fallo conexion banco");
+        //Solo se revisan las líneas cuyo precio cambió de versión desde que se agregaron
+        List<CarritoItem> preciosCambiados = preciosService.actualizarCarrito(carrito);
+        session.setAttribute("carrito", carrito);
+        if (!preciosCambiados.isEmpty()) {
+            preciosCambiados.forEach(item -> persistirLinea(session, carrito, item.getProductoId()));
+            session.setAttribute("errorPrecio", "Cambió el precio o la disponibilidad de: " + preciosCambiados.stream()
+                    .map(CarritoItem::getNombre).collect(Collectors.joining(", ")) + ". Revisa el total antes de pagar.");
+            return "redirect:/carrito/finalizar";
+        }
+        List<CarritoItem> lineas = carrito.lineas();
+        BillingMethod billingMethod = checkout.getMetodoPago() == null ? null
+                : billingMethodService.findById(checkout.getMetodoPago());
+
+        //Orden, reserva de stock, cobro y líneas de la orden en una sola transacción
+        ResultadoCompra compra;
+        try {
+            compra = compraService.comprar(checkout.getClaveIdempotencia(), usuario.getId(), checkout.getFullName(),
+                    billingMethod, lineas, carrito.getTotal());
+        } catch (CompraRechazadaException e) {
+            //La página de finalizar genera una clave nueva, así que reintentar no repite el rechazo
+            session.setAttribute(switch (e.getMotivo()) {
+                case SIN_STOCK -> "errorStock";
+                case PAGO_RECHAZADO -> "errorDinero";
+                case CLAVE_AJENA -> "errorCompra";
+            }, e.getMessage());
             return "redirect:/carrito/finalizar";
         }
 
-        //caso la operacion de cobro con el banco fue exitosa prosigue abajo
-        billingMethod.clearFields();
-        checkout.setCardnumber(billingMethod.getCardNumber());
-        checkout.setCarrito(carrito);
         session.removeAttribute("carrito");
+        carritoPersistenteService.vaciar(usuario.getId());
+        return confirmar(checkout, billingMethod, lineas, compra, model);
+    }
 
-        model.addAttribute("checkout", checkout);
-        model.addAttribute("total", total);
+    /**
+     * Prepara la página de confirmación de una orden ya registrada.
+     */
+    private String confirmar(Checkout checkout, BillingMethod billingMethod, List<CarritoItem> lineas,
+                             ResultadoCompra compra, Model model) {
+        if (billingMethod == null && checkout.getMetodoPago() != null) {
+            billingMethod = billingMethodService.findById(checkout.getMetodoPago());
+        }
+        if (billingMethod != null) {
+            //copia enmascarada: la entidad administrada no se toca (open-in-view)
+            checkout.setCardnumber(billingMethod.copiaEnmascarada().getCardNumber());
+        }
+        checkout.setCarrito(lineas);
 
-        //Aqui se puede crear la order, checkout tiene todo lo necesario
+        model.addAttribute("checkout", checkout);
+        model.addAttribute("total", compra.total());
+        model.addAttribute("numeroOrden", compra.numeroOrden());
         return "confirmacion";
     }
 
-
+    /**
+     * Si hay un usuario con sesión iniciada, registra el cambio de la línea en su carrito guardado.
+     */
+    private void persistirLinea(HttpSession session, Carrito carrito, Integer productoId) {
+        UsuarioSesion usuario = (UsuarioSesion) session.getAttribute("usuarioLog");
+        if (usuario != null) {
+            carritoPersistenteService.registrar(usuario.getId(), productoId, carrito.getItem(productoId));
+        }
+    }
 }
@@ -1,6 +1,6 @@
 package com.tienda.app.controller;
 
-import com.tienda.app.model.UserCredentialModel;
+import com.tienda.app.model.UsuarioSesion;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ModelAttribute;
@@ -20,14 +20,14 @@ public class GlobalControllerAdvice {
      * Método que añade el usuario logueado (si existe en sesión) como atributo de modelo global.
      *
      * @param session La sesión HTTP actual del usuario.
-     * @return El objeto UserCredentialModel del usuario autenticado,
+     * @return El {@link UsuarioSesion} del usuario autenticado (id, email, rol),
      *         o null si no hay nadie logueado.
      *
      * Este atributo ("usuarioLog") podrá ser accedido en cualquier vista
      * de Thymeleaf sin necesidad de añadirlo manualmente en cada controlador.
      */
     @ModelAttribute("usuarioLog")
-    public UserCredentialModel addUserToModel(HttpSession session) {
-        return (UserCredentialModel) session.getAttribute("usuarioLog");
+    public UsuarioSesion addUserToModel(HttpSession session) {
+        return (UsuarioSesion) session.getAttribute("usuarioLog");
     }
 }
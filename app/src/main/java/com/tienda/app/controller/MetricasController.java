@@ -0,0 +1,111 @@
+package com.tienda.app.controller;
+
+import com.tienda.app.service.ArticuloService;
+import com.tienda.app.service.ContrasenaService;
+import com.tienda.app.service.EmailsRegistradosService;
+import com.tienda.app.service.InventarioRayadoService;
+import com.tienda.app.service.LimiteIngresoService;
+import com.tienda.app.service.PerfilService;
+import com.tienda.app.service.PokeService;
+import com.tienda.app.utility.SesionExternaFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.Map;
+
+/**
+ * Controlador que expone en JSON los contadores internos de la aplicación
+ * (cachés, límites, etc.) para poder dimensionarlos.
+ *
+ * Rutas:
+ * - GET /admin/metricas/pokeapi → cachés de Pokémon, cargas agrupadas, circuit breaker y bulkhead.
+ * - GET /admin/metricas/articulos → caché de tarjetas de productos.
+ * - GET /admin/metricas/inventario → stock en memoria y pendientes de los productos rayados.
+ * - GET /admin/metricas/sesiones → escrituras hechas y omitidas del almacén de sesiones (si está activo).
+ * - GET /admin/metricas/hash → latencias de hash/verificación de contraseñas y rechazos del pool.
+ * - GET /admin/metricas/login → intentos de login permitidos y rechazados por email e IP.
+ * - GET /admin/metricas/usuarios → tamaño del filtro de Bloom de emails y consultas evitadas.
+ * - GET /admin/metricas/perfiles → caché de perfiles (información, dirección y tarjetas) por usuario.
+ */
+@Controller
+@RequestMapping("/admin/metricas")
+public class MetricasController {
+
+    private final PokeService pokeService;
+    private final ArticuloService articuloService;
+    private final InventarioRayadoService inventarioRayadoService;
+    private final ObjectProvider<SesionExternaFilter> sesionExternaFilter;
+    private final ContrasenaService contrasenaService;
+    private final LimiteIngresoService limiteIngresoService;
+    private final EmailsRegistradosService emailsRegistradosService;
+    private final PerfilService perfilService;
+
+    public MetricasController(PokeService pokeService, ArticuloService articuloService,
+                              InventarioRayadoService inventarioRayadoService,
+                              ObjectProvider<SesionExternaFilter> sesionExternaFilter,
+                              ContrasenaService contrasenaService,
+                              LimiteIngresoService limiteIngresoService,
+                              EmailsRegistradosService emailsRegistradosService,
+                              PerfilService perfilService) {
+        this.pokeService = pokeService;
+        this.articuloService = articuloService;
+        this.inventarioRayadoService = inventarioRayadoService;
+        this.sesionExternaFilter = sesionExternaFilter;
+        this.contrasenaService = contrasenaService;
+        this.limiteIngresoService = limiteIngresoService;
+        this.emailsRegistradosService = emailsRegistradosService;
+        this.perfilService = perfilService;
+    }
+
+    @GetMapping("/pokeapi")
+    @ResponseBody
+    public Map<String, Long> pokeapi() {
+        return pokeService.estadisticas();
+    }
+
+    @GetMapping("/articulos")
+    @ResponseBody
+    public Map<String, Long> articulos() {
+        return articuloService.estadisticasCache();
+    }
+
+    @GetMapping("/inventario")
+    @ResponseBody
+    public Map<String, Long> inventario() {
+        return inventarioRayadoService.estadisticas();
+    }
+
+    @GetMapping("/sesiones")
+    @ResponseBody
+    public Map<String, Long> sesiones() {
+        SesionExternaFilter filtro = sesionExternaFilter.getIfAvailable();
+        return filtro == null ? Map.of() : filtro.estadisticas();
+    }
+
+    @GetMapping("/hash")
+    @ResponseBody
+    public Map<String, Long> hash() {
+        return contrasenaService.estadisticas();
+    }
+
+    @GetMapping("/login")
+    @ResponseBody
+    public Map<String, Long> login() {
+        return limiteIngresoService.estadisticas();
+    }
+
+    @GetMapping("/usuarios")
+    @ResponseBody
+    public Map<String, Long> usuarios() {
+        return emailsRegistradosService.estadisticas();
+    }
+
+    @GetMapping("/perfiles")
+    @ResponseBody
+    public Map<String, Long> perfiles() {
+        return perfilService.estadisticas();
+    }
+}
@@ -2,6 +2,8 @@ package com.tienda.app.controller;
 
 import com.tienda.app.model.Pokemon;
 import com.tienda.app.service.PokeService;
+import com.tienda.app.service.PokedexSnapshotService;
+import com.tienda.app.utility.ServicioNoDisponibleException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,29 +14,55 @@ import java.util.List;
 @Controller
 public class PokeController {
 
+    private static final int LIMITE_INICIO = 55;
+
     private final PokeService pokeService;
+    private final PokedexSnapshotService pokedexSnapshot;
 
-    public PokeController(PokeService pokeService) {
+    public PokeController(PokeService pokeService, PokedexSnapshotService pokedexSnapshot) {
         this.pokeService = pokeService;
+        this.pokedexSnapshot = pokedexSnapshot;
     }
 
     @GetMapping("/")
     public String mostrarPokedex(Model model) {
-        List<Pokemon> pokemons = pokeService.obtenerPokemones("55");
-        model.addAttribute("pokemons", pokemons);
-        return "index";
+        return mostrarDesdeSnapshot(LIMITE_INICIO, model);
     }
 
     @GetMapping("/pokedex/{limit}")
     public String mostrarPokedex(@PathVariable("limit") String limit, Model model) {
-        List<Pokemon> pokemons = pokeService.obtenerPokemones(limit);
-        model.addAttribute("pokemons", pokemons);
-        return "index";
+        int limite;
+        try {
+            limite = Math.max(0, Integer.parseInt(limit.trim()));
+        } catch (NumberFormatException e) {
+            limite = LIMITE_INICIO;
+        }
+        return mostrarDesdeSnapshot(limite, model);
     }
 
     @GetMapping("/api/pokemon/+{id}")
     public String mostrarPokemon(Model model, @PathVariable String id) {
-        model.addAttribute("pokemon", pokeService.obtenerPokemon(id));
+        try {
+            model.addAttribute("pokemon", pokeService.obtenerPokemon(id));
+        } catch (ServicioNoDisponibleException e) {
+            model.addAttribute("pokedexDegradado", true);
+        }
+        return "index";
+    }
+
+    //si el snapshot todavia no esta listo, o la PokeAPI no responde, se muestra la pagina con un aviso (modo degradado)
+    private String mostrarDesdeSnapshot(int limite, Model model) {
+        List<Pokemon> pokemons;
+        boolean degradado;
+        try {
+            pokemons = pokedexSnapshot.obtener(limite);
+            degradado = pokedexSnapshot.isDegradado() && pokemons.size() < limite;
+        } catch (ServicioNoDisponibleException e) {
+            pokemons = pokedexSnapshot.delSnapshot(limite);
+            degradado = true;
+        }
+        model.addAttribute("pokemons", pokemons);
+        model.addAttribute("pokedexDegradado", degradado);
         return "index";
     }
 }
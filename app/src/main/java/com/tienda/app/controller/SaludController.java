@@ -0,0 +1,51 @@
+package com.tienda.app.controller;
+
+import com.tienda.app.service.PokedexSnapshotService;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Sondas para el balanceador u orquestador, sin depender de Actuator.
+ *
+ * Rutas:
+ * - GET /salud/vivo  → 200 si la aplicación está viva (LivenessState.CORRECT), 503 si no.
+ * - GET /salud/listo → 200 si Spring Boot terminó de arrancar (ReadinessState.ACCEPTING_TRAFFIC)
+ *   y el snapshot del Pokédex ya alcanza el mínimo; 503 si no.
+ */
+@RestController
+@RequestMapping("/salud")
+public class SaludController {
+
+    private final ApplicationAvailability disponibilidad;
+    private final PokedexSnapshotService pokedexSnapshot;
+
+    public SaludController(ApplicationAvailability disponibilidad, PokedexSnapshotService pokedexSnapshot) {
+        this.disponibilidad = disponibilidad;
+        this.pokedexSnapshot = pokedexSnapshot;
+    }
+
+    @GetMapping("/vivo")
+    public ResponseEntity<String> vivo() {
+        LivenessState estado = disponibilidad.getLivenessState();
+        return ResponseEntity.status(estado == LivenessState.CORRECT ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(estado.name());
+    }
+
+    @GetMapping("/listo")
+    public ResponseEntity<String> listo() {
+        ReadinessState estado = disponibilidad.getReadinessState();
+        if (estado != ReadinessState.ACCEPTING_TRAFFIC) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(estado.name());
+        }
+        if (pokedexSnapshot.isDegradado()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("POKEDEX_INCOMPLETO");
+        }
+        return ResponseEntity.ok(estado.name());
+    }
+}
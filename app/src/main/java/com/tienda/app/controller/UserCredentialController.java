@@ -1,36 +1,61 @@
 package com.tienda.app.controller;
 
+import com.tienda.app.model.Carrito;
 import com.tienda.app.model.UserCredentialModel;
+import com.tienda.app.model.UsuarioSesion;
+import com.tienda.app.service.CarritoPersistenteService;
+import com.tienda.app.service.ContrasenaService;
+import com.tienda.app.service.LimiteIngresoService;
+import com.tienda.app.service.PerfilService;
 import com.tienda.app.service.UserCredentialService;
+import com.tienda.app.utility.ServicioNoDisponibleException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.servlet.ModelAndView;
 
 /**
  * Controlador encargado de gestionar el login, registro y logout de usuarios.
  *
  * Flujo principal:
  * - GET /credenciales/ingresar → muestra formulario de login
- * - POST /credenciales/ingresar → valida credenciales e inicia sesión
+ * - POST /credenciales/ingresar → valida credenciales e inicia sesión (y recupera su carrito guardado)
  * - GET /credenciales/registrar → muestra formulario de registro
  * - POST /credenciales/registrar → registra nuevo usuario
  * - POST /credenciales/logout → cierra sesión
+ *
+ * El hash de contraseñas corre en el pool acotado de {@link ContrasenaService}; si
+ * está saturado, el login o el registro responden 503 con el formulario y un aviso.
+ * Los intentos de login se limitan por email e IP ({@link LimiteIngresoService}); el
+ * exceso recibe 429 sin tocar la base de datos.
  */
 @Controller
 @RequestMapping("/credenciales")
 public class UserCredentialController {
 
     private final UserCredentialService userCredentialService;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final ContrasenaService contrasenaService;
+    private final CarritoPersistenteService carritoPersistenteService;
+    private final LimiteIngresoService limiteIngresoService;
+    private final PerfilService perfilService;
 
     // Inyección del servicio que maneja la lógica de usuarios
     public UserCredentialController(UserCredentialService userCredentialService,
-                                    BCryptPasswordEncoder passwordEncoder) {
+                                    ContrasenaService contrasenaService,
+                                    CarritoPersistenteService carritoPersistenteService,
+                                    LimiteIngresoService limiteIngresoService,
+                                    PerfilService perfilService) {
         this.userCredentialService = userCredentialService;
-        this.passwordEncoder = passwordEncoder;
+        this.contrasenaService = contrasenaService;
+        this.carritoPersistenteService = carritoPersistenteService;
+        this.limiteIngresoService = limiteIngresoService;
+        this.perfilService = perfilService;
     }
 
     /**
@@ -68,12 +93,26 @@ public class UserCredentialController {
      * @param userCredential objeto con email y password recibidos del formulario
      * @param model modelo para pasar mensajes de error en caso de credenciales inválidas
      * @param session sesión HTTP donde se guarda el usuario logueado
+     * @param request petición, de donde se toma la IP del cliente para el límite de intentos
+     * @param response respuesta, para el estado 429 si se supera el límite
      * @return redirige a "/" si el login fue exitoso, o vuelve a "pagina_ingresar" con error
      */
     @PostMapping("/ingresar")
     public String ingresar(@ModelAttribute UserCredentialModel userCredential,
                            Model model,
-                           HttpSession session) {
+                           HttpSession session,
+                           HttpServletRequest request,
+                           HttpServletResponse response) {
+
+        // Límite de intentos por IP y por email, antes de consultar la base o calcular el hash.
+        // Detrás de un balanceador, getRemoteAddr() es la IP del cliente gracias a
+        // server.forward-headers-strategy (solo se creen los encabezados de proxies conocidos)
+        if (!limiteIngresoService.permitir(userCredential.getEmail(), request.getRemoteAddr())) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(limiteIngresoService.reintentoSegundos()));
+            model.addAttribute("error", "Demasiados intentos de ingreso, espera un momento e intenta de nuevo");
+            return "pagina_ingresar";
+        }
 
         // Validar credenciales en la base de datos
         UserCredentialModel user = userCredentialService.ValidarCredenciales(
@@ -87,14 +126,27 @@ public class UserCredentialController {
             return "pagina_ingresar";
         }
 
-        // Por seguridad, no exponer el password en sesión
-        user.setPasswordHash("Oculto");
+        // Por email solo cuentan los intentos fallidos
+        limiteIngresoService.ingresoExitoso(userCredential.getEmail());
+
+        // En la sesión solo va un resumen inmutable (nunca el hash ni la entidad JPA).
+        // Se carga aquí el perfil (queda en caché para la página personal y el checkout)
+        UsuarioSesion usuarioSesion = UsuarioSesion.de(user, perfilService.tienePerfil(user.getId()));
 
         // Debug en consola: rol del usuario (puedes quitarlo en producción)
-        System.out.println(user.getRole());
+        System.out.println(usuarioSesion.getRole());
+
+        // Id de sesión nuevo al autenticarse (evita la fijación de sesión); los atributos se conservan
+        request.changeSessionId();
+
+        // Guardar usuario logueado en la sesión (recordando si ya había uno)
+        UsuarioSesion anterior = (UsuarioSesion) session.getAttribute("usuarioLog");
+        session.setAttribute("usuarioLog", usuarioSesion);
 
-        // Guardar usuario logueado en la sesión
-        session.setAttribute("usuarioLog", user);
+        // Solo un carrito anónimo se une al guardado; el de otro usuario no se mezcla
+        Carrito carrito = carritoPersistenteService.alIngresar(usuarioSesion.getId(), anterior,
+                (Carrito) session.getAttribute("carrito"));
+        session.setAttribute("carrito", carrito);
 
         // Redirigir a la página principal
         return "redirect:/";
@@ -121,7 +173,7 @@ public class UserCredentialController {
             return "pagina_registrar";
         }
 
-        String hashedPassword = passwordEncoder.encode(userCredential.getPasswordHash());
+        String hashedPassword = contrasenaService.codificar(userCredential.getPasswordHash());
         userCredential.setPasswordHash(hashedPassword);
         // Registrar nuevo usuario
         userCredentialService.registrarUser(
@@ -142,11 +194,32 @@ public class UserCredentialController {
      */
     @PostMapping("/logout")
     public String logout(HttpSession session) {
+        // Antes de descartar la sesión se escriben los cambios pendientes del carrito
+        UsuarioSesion user = (UsuarioSesion) session.getAttribute("usuarioLog");
+        if (user != null) carritoPersistenteService.escribirPendientes(user.getId());
+
         // Elimina todos los atributos de la sesión (incluye carrito, usuario, etc.)
         session.invalidate();
         return "redirect:/";
     }
 
+    /**
+     * Pool de hash saturado: se devuelve el mismo formulario con HTTP 503 y
+     * Retry-After, sin ocupar más el hilo de la petición.
+     */
+    @ExceptionHandler(ServicioNoDisponibleException.class)
+    public ModelAndView servicioNoDisponible(ServicioNoDisponibleException e,
+                                             HttpServletRequest request,
+                                             HttpServletResponse response) {
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        ModelAndView vista = new ModelAndView(request.getRequestURI().endsWith("/registrar")
+                ? "pagina_registrar" : "pagina_ingresar");
+        vista.setStatus(HttpStatus.SERVICE_UNAVAILABLE);
+        vista.addObject("userCredentialModel", new UserCredentialModel());
+        vista.addObject("error", e.getMessage());
+        return vista;
+    }
+
     //metodo para la renovacion de la sesion
     @GetMapping("/refresh")
     @ResponseBody
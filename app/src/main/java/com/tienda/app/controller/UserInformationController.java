@@ -1,10 +1,11 @@
 package com.tienda.app.controller;
 
-import com.tienda.app.model.BillingMethod;
+import com.tienda.app.model.PerfilUsuario;
 import com.tienda.app.model.UserAddress;
-import com.tienda.app.model.UserCredentialModel;
 import com.tienda.app.model.UserInformation;
+import com.tienda.app.model.UsuarioSesion;
 import com.tienda.app.service.BillingMethodService;
+import com.tienda.app.service.PerfilService;
 import com.tienda.app.service.UserAddressService;
 import com.tienda.app.service.UserInformationService;
 import jakarta.servlet.http.HttpSession;
@@ -12,35 +13,34 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @Controller
 @RequestMapping("/pagina_personal")
 public class UserInformationController {
     private final UserInformationService userInformationService;
     private final UserAddressService userAddressService;
     private final BillingMethodService billingMethodService;
+    private final PerfilService perfilService;
 
-    public UserInformationController(UserInformationService userInformationServices, UserAddressService userAddressService, BillingMethodService billingMethodService) {
+    public UserInformationController(UserInformationService userInformationServices, UserAddressService userAddressService, BillingMethodService billingMethodService, PerfilService perfilService) {
         this.userInformationService = userInformationServices;
         this.userAddressService = userAddressService;
         this.billingMethodService = billingMethodService;
+        this.perfilService = perfilService;
     }
 
     //Pagina para visualizar informacion personal y metodos de pagos
     @GetMapping
     public String inicio(HttpSession session, Model model){
-        UserCredentialModel userCredentialModel = (UserCredentialModel) session.getAttribute("usuarioLog");
+        UsuarioSesion usuario = (UsuarioSesion) session.getAttribute("usuarioLog");
 
-        UserInformation userInformation = userInformationService.getUserInformationById(userCredentialModel.getId());
-        UserAddress userAddress = userAddressService.getUserAddressByUserId(userCredentialModel.getId());
-        List<BillingMethod> list = billingMethodService.findAllByUserId(userCredentialModel.getId());
-        if (userInformation == null){//si no se encontro informacion personal y direccion el usuario esta obligado a crearlos
+        if (!usuario.isPerfilCompleto()){//si no tiene informacion personal y direccion el usuario esta obligado a crearlos
             return "redirect:/pagina_personal/pagina_datosPersonales";
         }
-        model.addAttribute("usuarioInfo", userInformation);
-        model.addAttribute("usuarioAddr", userAddress);
-        model.addAttribute("billingMs", list);
+        //Perfil desde la caché: sin consultas a la base de datos si ya se cargó
+        PerfilUsuario perfil = perfilService.obtener(usuario.getId());
+        model.addAttribute("usuarioInfo", perfil.informacion());
+        model.addAttribute("usuarioAddr", perfil.direccion());
+        model.addAttribute("billingMs", perfil.tarjetas());
         return "pagina_personal";
     }
 
@@ -56,15 +56,17 @@ public class UserInformationController {
     @PostMapping("/actualizaraddr")
     public String actualizarDireccion(@ModelAttribute("usuarioAddr") UserAddress usuarioAddr, HttpSession session) {
         // Obtener el usuario logueado si necesita asociar la dirección
-        UserCredentialModel user = (UserCredentialModel) session.getAttribute("usuarioLog");
-        usuarioAddr.setUser(user);
+        UsuarioSesion user = (UsuarioSesion) session.getAttribute("usuarioLog");
+        usuarioAddr.setUser(user.referencia());
         userAddressService.updateUserAddress(usuarioAddr);
+        perfilService.invalidar(user.getId());
         return "redirect:/pagina_personal"; // volver a la página del perfil
     }
 
     @PostMapping("/deletecard/{id}")
-    public String deleteDireccion(@PathVariable("id") Integer id){
+    public String deleteDireccion(@PathVariable("id") Integer id, HttpSession session){
         billingMethodService.deleteById(id);
+        perfilService.invalidar(((UsuarioSesion) session.getAttribute("usuarioLog")).getId());
         return "redirect:/pagina_personal";
     }
 
@@ -73,14 +75,18 @@ public class UserInformationController {
     public String crearPerfil(@ModelAttribute UserInformation info,
                               @ModelAttribute UserAddress addr,
                               HttpSession session) {
-        UserCredentialModel userCredentialModel = (UserCredentialModel) session.getAttribute("usuarioLog");
+        UsuarioSesion usuario = (UsuarioSesion) session.getAttribute("usuarioLog");
 
         // completar lo que no viene del formulario (id del user)
-        info.setId(userCredentialModel.getId());
+        info.setId(usuario.getId());
         userInformationService.create(info);
 
-        addr.setUser(userCredentialModel);
+        addr.setUser(usuario.referencia());
         userAddressService.create(addr);
+
+        // el usuario de la sesión es inmutable: se reemplaza por uno con el perfil completo
+        perfilService.invalidar(usuario.getId());
+        session.setAttribute("usuarioLog", usuario.conPerfilCompleto());
         return "redirect:/";
     }
 }
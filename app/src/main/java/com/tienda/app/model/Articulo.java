@@ -6,6 +6,7 @@ import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * Entidad JPA que representa un artículo (producto) de la tienda.
@@ -16,7 +17,10 @@ import java.math.BigDecimal;
  * - Control de stock y precio.
  */
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_product_category_active", columnList = "category_id, is_active"),
+        @Index(name = "idx_product_updated", columnList = "updated_at")
+})
 public class Articulo {
 
     /** Identificador único del producto (clave primaria, autoincremental). */
@@ -62,6 +66,15 @@ public class Articulo {
     @Column(name = "price", nullable = false, precision = 10, scale = 2)
     private BigDecimal price;
 
+    /**
+     * Momento de la última modificación de la fila. Lo mantiene MySQL (no se
+     * escribe desde JPA); sirve de versión del precio y para refrescar cachés
+     * leyendo solo las filas cambiadas.
+     */
+    @Column(name = "updated_at", insertable = false, updatable = false,
+            columnDefinition = "TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)")
+    private LocalDateTime updatedAt;
+
     // ==========================
     // Constructores
     // ==========================
@@ -114,4 +127,6 @@ public class Articulo {
     public BigDecimal getPrice() { return price; }
 
     public void setPrice(BigDecimal price) { this.price = price; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
 }
@@ -0,0 +1,39 @@
+package com.tienda.app.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Proyección de solo lectura de un {@link Articulo} con lo que necesita la
+ * tarjeta del catálogo.
+ *
+ * No es una entidad: se construye directamente desde la consulta, así que no
+ * trae la descripción (TEXT) ni la categoría y no queda registrada en el
+ * contexto de persistencia.
+ *
+ * @param id id del producto.
+ * @param name nombre del producto.
+ * @param price precio unitario.
+ * @param imageUrl URL de la imagen.
+ * @param stockQuantity unidades disponibles.
+ * @param updatedAt última modificación de la fila (solo en {@code buscarTarjeta}; null en los listados).
+ */
+public record ArticuloTarjeta(Integer id, String name, BigDecimal price, String imageUrl, Integer stockQuantity,
+                              LocalDateTime updatedAt) {
+
+    /**
+     * Tarjeta sin fecha de modificación (listados del catálogo).
+     */
+    public ArticuloTarjeta(Integer id, String name, BigDecimal price, String imageUrl, Integer stockQuantity) {
+        this(id, name, price, imageUrl, stockQuantity, null);
+    }
+
+    /**
+     * Versión del precio: la fecha de modificación en milisegundos, o -1 si no se
+     * conoce (nunca coincide con la de una línea del carrito).
+     */
+    public long version() {
+        return updatedAt == null ? -1 : updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -6,7 +6,9 @@ import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "bank")
+@Table(name = "bank", indexes = {
+        @Index(name = "UX_bank_card", columnList = "card_number", unique = true)
+})
 public class Bank {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
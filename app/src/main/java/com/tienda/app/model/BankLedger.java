@@ -0,0 +1,69 @@
+package com.tienda.app.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Movimiento del libro mayor del banco: un registro por cada débito a una tarjeta.
+ *
+ * Se escribe en la misma transacción que el débito (ver {@link com.tienda.app.service.BankService}),
+ * así el saldo y su auditoría nunca quedan desalineados.
+ */
+@Entity
+@Table(name = "bank_ledger", indexes = {
+        @Index(name = "IX_ledger_bank", columnList = "bank_id, created_at")
+})
+public class BankLedger {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    /** Cuenta del banco debitada. */
+    @Column(name = "bank_id", nullable = false)
+    private Integer bankId;
+
+    /** Monto debitado. */
+    @Column(name = "amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    /** Saldo de la cuenta después del débito. */
+    @Column(name = "balance_after", nullable = false, precision = 10, scale = 2)
+    private BigDecimal balanceAfter;
+
+    /** Referencia del cobro (número de orden), si la hay. */
+    @Column(name = "reference", length = 50)
+    private String reference;
+
+    @ColumnDefault("CURRENT_TIMESTAMP")
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getBankId() {
+        return bankId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public BigDecimal getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -108,4 +108,21 @@ public class BillingMethod {
 
         this.cardNumber = first2 + middle + last4;
     }
+
+    /**
+     * Devuelve una copia desligada de JPA con los datos sensibles enmascarados
+     * (ver {@link #clearFields()}). La entidad original no se modifica, así que
+     * nunca se escribe el número enmascarado en la base de datos.
+     *
+     * @return copia sin usuario, sin vencimiento y con el número enmascarado.
+     */
+    public BillingMethod copiaEnmascarada() {
+        BillingMethod copia = new BillingMethod();
+        copia.id = id;
+        copia.cardNumber = cardNumber;
+        copia.brand = brand;
+        copia.nameOnCard = nameOnCard;
+        copia.clearFields();
+        return copia;
+    }
 }
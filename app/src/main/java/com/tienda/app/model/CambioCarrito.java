@@ -0,0 +1,10 @@
+package com.tienda.app.model;
+
+/**
+ * Cambio sobre el carrito recibido por la API JSON (/api/carrito).
+ *
+ * @param operacion "agregar", "actualizar" o "eliminar".
+ * @param productoId id del producto.
+ * @param cantidad unidades a agregar, o cantidad final al actualizar (se ignora al eliminar).
+ */
+public record CambioCarrito(String operacion, Integer productoId, Integer cantidad) {}
@@ -0,0 +1,137 @@
+package com.tienda.app.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Carrito de compras guardado en la sesión (atributo "carrito").
+ *
+ * Las líneas se indexan por id de producto (agregar, actualizar y eliminar son
+ * O(1), sin recorrer la lista) y conservan el orden en que se agregaron. El
+ * total se mantiene en céntimos y se ajusta en cada cambio, de modo que
+ * mostrarlo no requiere sumar las líneas.
+ */
+public class Carrito implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Tipo concreto (serializable) a propósito: el carrito viaja en la sesión. */
+    private final LinkedHashMap<Integer, CarritoItem> items = new LinkedHashMap<>();
+
+    /** Suma de los subtotales de todas las líneas, en céntimos. */
+    private long totalCentavos;
+
+    /**
+     * Agrega unidades de un producto; si ya estaba en el carrito, suma la cantidad.
+     *
+     * @param productoId id del producto.
+     * @param nombre nombre del producto (solo se usa si la línea es nueva).
+     * @param precio precio unitario (solo se usa si la línea es nueva).
+     * @param cantidad unidades a agregar.
+     */
+    public void agregar(Integer productoId, String nombre, BigDecimal precio, int cantidad) {
+        CarritoItem item = items.get(productoId);
+        if (item == null) {
+            item = new CarritoItem(productoId, nombre, precio, cantidad);
+            items.put(productoId, item);
+            totalCentavos += item.getSubtotalCentavos();
+        } else {
+            cambiarCantidad(item, item.getCantidad() + cantidad);
+        }
+    }
+
+    /**
+     * Agrega unidades de un producto con el nombre y precio vigentes.
+     * Si ya estaba en el carrito, suma la cantidad (conserva el precio de la línea).
+     *
+     * @param precio precio vigente (con su versión).
+     * @param cantidad unidades a agregar.
+     */
+    public void agregar(PrecioVigente precio, int cantidad) {
+        CarritoItem item = items.get(precio.productoId());
+        if (item == null) {
+            item = new CarritoItem(precio.productoId(), precio.nombre(), precio.precioCentavos(), cantidad,
+                    precio.version());
+            items.put(precio.productoId(), item);
+            totalCentavos += item.getSubtotalCentavos();
+        } else {
+            cambiarCantidad(item, item.getCantidad() + cantidad);
+        }
+    }
+
+    /**
+     * Reemplaza nombre, precio y versión de una línea existente, conservando la cantidad.
+     */
+    public void actualizarPrecio(PrecioVigente precio) {
+        CarritoItem anterior = items.get(precio.productoId());
+        if (anterior == null) return;
+        CarritoItem nuevo = new CarritoItem(precio.productoId(), precio.nombre(), precio.precioCentavos(),
+                anterior.getCantidad(), precio.version());
+        items.put(precio.productoId(), nuevo);
+        totalCentavos += nuevo.getSubtotalCentavos() - anterior.getSubtotalCentavos();
+    }
+
+    /**
+     * Fija la cantidad de un producto; con cantidad 0 o menor se elimina la línea.
+     * Si el producto no está en el carrito no hace nada.
+     */
+    public void actualizarCantidad(Integer productoId, int cantidad) {
+        if (cantidad <= 0) {
+            eliminar(productoId);
+            return;
+        }
+        CarritoItem item = items.get(productoId);
+        if (item != null) cambiarCantidad(item, cantidad);
+    }
+
+    /**
+     * Elimina la línea de un producto.
+     */
+    public void eliminar(Integer productoId) {
+        CarritoItem item = items.remove(productoId);
+        if (item != null) totalCentavos -= item.getSubtotalCentavos();
+    }
+
+    /**
+     * Línea de un producto, o null si no está en el carrito.
+     */
+    public CarritoItem getItem(Integer productoId) {
+        return items.get(productoId);
+    }
+
+    /**
+     * Líneas del carrito en orden de inserción (vista de solo lectura).
+     */
+    public Collection<CarritoItem> getItems() {
+        return Collections.unmodifiableCollection(items.values());
+    }
+
+    /**
+     * Copia de las líneas, para guardarlas fuera de la sesión (por ejemplo, en el Checkout).
+     */
+    public List<CarritoItem> lineas() {
+        return List.copyOf(items.values());
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    public long getTotalCentavos() {
+        return totalCentavos;
+    }
+
+    public BigDecimal getTotal() {
+        return BigDecimal.valueOf(totalCentavos, 2);
+    }
+
+    private void cambiarCantidad(CarritoItem item, int cantidad) {
+        totalCentavos -= item.getSubtotalCentavos();
+        item.setCantidad(cantidad);
+        totalCentavos += item.getSubtotalCentavos();
+    }
+}
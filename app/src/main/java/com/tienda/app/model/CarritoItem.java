@@ -1,27 +1,44 @@
 package com.tienda.app.model;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 /**
  * Clase auxiliar (no entidad JPA) que representa un ítem dentro del carrito de compras.
  *
  * Contiene la información mínima necesaria para mostrar y calcular subtotales
  * sin necesidad de cargar la entidad completa de la base de datos.
+ *
+ * Los montos se guardan en céntimos ({@code long}) y el subtotal se mantiene
+ * calculado: mostrar el carrito no vuelve a multiplicar precio por cantidad.
+ * La cantidad solo se cambia a través de {@link Carrito}, que ajusta el total.
+ *
+ * Cada línea guarda la versión del precio con la que se agregó (0 si se
+ * desconoce), para revisar solo las líneas viejas al pagar.
  */
-public class CarritoItem {
+public class CarritoItem implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     /** Identificador del producto (referencia a la entidad Articulo). */
-    private Integer productoId;
+    private final int productoId;
 
     /** Nombre del producto. */
-    private String nombre;
+    private final String nombre;
 
-    /** Precio unitario del producto. */
-    private BigDecimal precio;
+    /** Precio unitario del producto, en céntimos. */
+    private final long precioCentavos;
 
     /** Cantidad del producto agregada al carrito. */
     private int cantidad;
 
+    /** precioCentavos * cantidad, actualizado al cambiar la cantidad. */
+    private long subtotalCentavos;
+
+    /** Versión del precio con que se agregó (0 = desconocida). */
+    private final long versionPrecio;
+
     /**
      * Constructor principal.
      *
@@ -31,55 +48,77 @@ public class CarritoItem {
      * @param cantidad cantidad en el carrito
      */
     public CarritoItem(Integer productoId, String nombre, BigDecimal precio, int cantidad) {
+        this(productoId, nombre, aCentavos(precio), cantidad, 0);
+    }
+
+    /**
+     * Constructor con el precio ya en céntimos y su versión.
+     *
+     * @param productoId id del producto
+     * @param nombre nombre del producto
+     * @param precioCentavos precio unitario en céntimos
+     * @param cantidad cantidad en el carrito
+     * @param versionPrecio versión del precio (0 = desconocida)
+     */
+    public CarritoItem(Integer productoId, String nombre, long precioCentavos, int cantidad, long versionPrecio) {
         this.productoId = productoId;
         this.nombre = nombre;
-        this.precio = precio;
+        this.precioCentavos = precioCentavos;
+        this.versionPrecio = versionPrecio;
         this.cantidad = cantidad;
+        this.subtotalCentavos = precioCentavos * cantidad;
     }
 
     /**
-     * Calcula el subtotal del ítem en el carrito.
-     *
-     * @return precio * cantidad
+     * Convierte un monto a céntimos (redondeando a 2 decimales).
+     */
+    public static long aCentavos(BigDecimal monto) {
+        return monto.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Subtotal del ítem en el carrito (precio * cantidad, ya calculado).
      */
     public BigDecimal getSubtotal() {
-        return precio.multiply(new BigDecimal(cantidad));
+        return BigDecimal.valueOf(subtotalCentavos, 2);
+    }
+
+    public long getSubtotalCentavos() {
+        return subtotalCentavos;
     }
 
     // ==========================
     // Getters & Setters
     // ==========================
 
-    public Integer getProductoId() {
+    public int getProductoId() {
         return productoId;
     }
 
-    public void setProductoId(Integer productoId) {
-        this.productoId = productoId;
-    }
-
     public String getNombre() {
         return nombre;
     }
 
-    public void setNombre(String nombre) {
-        this.nombre = nombre;
-    }
-
     public BigDecimal getPrecio() {
-        return precio;
+        return BigDecimal.valueOf(precioCentavos, 2);
     }
 
-    public void setPrecio(BigDecimal precio) {
-        this.precio = precio;
+    public long getPrecioCentavos() {
+        return precioCentavos;
     }
 
     public int getCantidad() {
         return cantidad;
     }
 
-    public void setCantidad(int cantidad) {
+    public long getVersionPrecio() {
+        return versionPrecio;
+    }
+
+    /** Solo {@link Carrito} cambia la cantidad, para mantener su total al día. */
+    void setCantidad(int cantidad) {
         this.cantidad = cantidad;
+        this.subtotalCentavos = precioCentavos * cantidad;
     }
 
     /**
@@ -90,9 +129,10 @@ public class CarritoItem {
         return "CarritoItem{" +
                 "productoId=" + productoId +
                 ", nombre='" + nombre + '\'' +
-                ", precio=" + precio +
+                ", precioCentavos=" + precioCentavos +
                 ", cantidad=" + cantidad +
-                ", subtotal=" + getSubtotal() +
+                ", subtotalCentavos=" + subtotalCentavos +
+                ", versionPrecio=" + versionPrecio +
                 '}';
     }
 }
@@ -20,9 +20,12 @@ public class Checkout {
     private Integer metodoPago; //cardNumber seleccionado
     private String cardnumber;
 
-    //Lista de productos para mostrar al final y crear orden
+    //Lista de productos para mostrar al final y crear orden (copia de las líneas del Carrito)
     List<CarritoItem> carrito;
 
+    //Clave única del formulario; se guarda como order_number para no cobrar dos veces el mismo envío
+    private String claveIdempotencia;
+
 
     // Getters y setters
     public String getFullName() {
@@ -113,4 +116,12 @@ public class Checkout {
         this.cardnumber = cardnumber;
     }
 
+    public String getClaveIdempotencia() {
+        return claveIdempotencia;
+    }
+
+    public void setClaveIdempotencia(String claveIdempotencia) {
+        this.claveIdempotencia = claveIdempotencia;
+    }
+
 }
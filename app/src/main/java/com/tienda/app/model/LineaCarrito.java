@@ -0,0 +1,16 @@
+package com.tienda.app.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Estado de una línea del carrito devuelto por la API JSON.
+ * Una línea eliminada se informa con cantidad 0.
+ */
+public record LineaCarrito(int productoId, String nombre, BigDecimal precio, int cantidad, BigDecimal subtotal) {
+
+    public static LineaCarrito de(Integer productoId, CarritoItem item) {
+        if (item == null) return new LineaCarrito(productoId, null, null, 0, BigDecimal.ZERO);
+        return new LineaCarrito(item.getProductoId(), item.getNombre(), item.getPrecio(),
+                item.getCantidad(), item.getSubtotal());
+    }
+}
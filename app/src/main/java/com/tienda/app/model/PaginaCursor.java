@@ -0,0 +1,21 @@
+package com.tienda.app.model;
+
+import java.util.List;
+
+/**
+ * Página de resultados obtenida con paginación por cursor (keyset).
+ *
+ * En lugar de un número de página (OFFSET), cada página indica el último id
+ * mostrado; la siguiente consulta continúa a partir de ese id, por lo que el
+ * costo de cada página es constante sin importar cuántas filas haya antes.
+ *
+ * @param elementos elementos de la página.
+ * @param siguiente cursor (último id) para pedir la página siguiente, o null si no hay más.
+ * @param <T> tipo de los elementos.
+ */
+public record PaginaCursor<T>(List<T> elementos, Integer siguiente) {
+
+    public boolean tieneSiguiente() {
+        return siguiente != null;
+    }
+}
@@ -0,0 +1,12 @@
+package com.tienda.app.model;
+
+import java.util.List;
+
+/**
+ * Datos de perfil de un usuario que muestran la página personal y el checkout.
+ *
+ * @param informacion información personal (null si aún no la creó).
+ * @param direccion dirección (null si aún no la creó).
+ * @param tarjetas métodos de pago con el número enmascarado.
+ */
+public record PerfilUsuario(UserInformation informacion, UserAddress direccion, List<BillingMethod> tarjetas) {}
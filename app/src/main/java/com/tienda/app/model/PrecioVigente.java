@@ -0,0 +1,18 @@
+package com.tienda.app.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Nombre y precio vigentes de un producto, resueltos en el servidor.
+ *
+ * @param productoId id del producto.
+ * @param nombre nombre del producto.
+ * @param precioCentavos precio unitario en céntimos.
+ * @param version versión del precio (fecha de modificación del producto en milisegundos).
+ */
+public record PrecioVigente(int productoId, String nombre, long precioCentavos, long version) {
+
+    public BigDecimal precio() {
+        return BigDecimal.valueOf(precioCentavos, 2);
+    }
+}
@@ -0,0 +1,13 @@
+package com.tienda.app.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Respuesta de la API JSON del carrito: solo las líneas que cambiaron y el nuevo total.
+ *
+ * @param lineas líneas afectadas por la petición (todas, en GET /api/carrito).
+ * @param total total del carrito.
+ * @param cantidadLineas cantidad de líneas que quedan en el carrito.
+ */
+public record RespuestaCarrito(List<LineaCarrito> lineas, BigDecimal total, int cantidadLineas) {}
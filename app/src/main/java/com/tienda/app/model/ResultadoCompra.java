@@ -0,0 +1,13 @@
+package com.tienda.app.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Resultado de una compra finalizada.
+ *
+ * @param ordenId id de la orden en la tabla orders.
+ * @param numeroOrden número de la orden (la clave de idempotencia del formulario).
+ * @param total total cobrado.
+ * @param repetida true si la petición era un reenvío de una compra ya hecha (no se volvió a cobrar).
+ */
+public record ResultadoCompra(Integer ordenId, String numeroOrden, BigDecimal total, boolean repetida) {}
@@ -0,0 +1,18 @@
+package com.tienda.app.model;
+
+import java.util.List;
+
+/**
+ * Resultado de reservar (descontar) el stock de todas las líneas de un carrito.
+ *
+ * La reserva es de todo o nada: si alguna línea no tiene stock suficiente no se
+ * descuenta ninguna y {@code fallidas} indica cuáles fallaron.
+ *
+ * @param fallidas líneas sin stock suficiente (o cuyo producto no existe); vacía si la reserva se hizo.
+ */
+public record ResultadoReserva(List<CarritoItem> fallidas) {
+
+    public boolean exitosa() {
+        return fallidas.isEmpty();
+    }
+}
@@ -26,8 +26,8 @@ public class UserCredentialModel {
     @Column(name = "id", nullable = false)
     private Integer id;
 
-    /** Email del usuario (también funciona como nombre de usuario). */
-    @Column(name = "email", nullable = false, length = 254)
+    /** Email del usuario (también funciona como nombre de usuario, único). */
+    @Column(name = "email", nullable = false, length = 254, unique = true)
     private String email;
 
     /** Contraseña del usuario (almacenada como hash, nunca en texto plano). */
@@ -0,0 +1,69 @@
+package com.tienda.app.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Usuario con sesión iniciada, tal como se guarda en la sesión ("usuarioLog").
+ *
+ * Es inmutable y solo tiene lo que las vistas y controladores necesitan en cada
+ * petición: id, email, rol y si ya completó su perfil (información personal y
+ * dirección). Los datos del perfil se piden a {@link com.tienda.app.service.PerfilService}.
+ */
+public final class UsuarioSesion implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Integer id;
+    private final String email;
+    private final String role;
+    private final boolean perfilCompleto;
+
+    public UsuarioSesion(Integer id, String email, String role, boolean perfilCompleto) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.perfilCompleto = perfilCompleto;
+    }
+
+    public static UsuarioSesion de(UserCredentialModel credencial, boolean perfilCompleto) {
+        return new UsuarioSesion(credencial.getId(), credencial.getEmail(), credencial.getRole(), perfilCompleto);
+    }
+
+    /**
+     * @return una copia marcada con el perfil completo.
+     */
+    public UsuarioSesion conPerfilCompleto() {
+        return perfilCompleto ? this : new UsuarioSesion(id, email, role, true);
+    }
+
+    /**
+     * @return una credencial con solo el id, para asociar entidades JPA al usuario.
+     */
+    public UserCredentialModel referencia() {
+        UserCredentialModel credencial = new UserCredentialModel();
+        credencial.setId(id);
+        return credencial;
+    }
+
+    public Integer getId() { return id; }
+
+    public String getEmail() { return email; }
+
+    public String getRole() { return role; }
+
+    public boolean isPerfilCompleto() { return perfilCompleto; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UsuarioSesion that)) return false;
+        return perfilCompleto == that.perfilCompleto && Objects.equals(id, that.id)
+                && Objects.equals(email, that.email) && Objects.equals(role, that.role);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, email, role, perfilCompleto);
+    }
+}
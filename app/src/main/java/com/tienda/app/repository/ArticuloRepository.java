@@ -1,9 +1,17 @@
 package com.tienda.app.repository;
 
 import com.tienda.app.model.Articulo;
+import com.tienda.app.model.ArticuloTarjeta;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Repositorio JPA para la entidad {@link Articulo}.
  *
@@ -11,6 +19,13 @@ import org.springframework.stereotype.Repository;
  * - Métodos CRUD (save, findById, findAll, delete, etc.).
  * - Soporte para paginación y ordenamiento.
  *
+ * Métodos personalizados (paginación por cursor sobre productos activos, devolviendo
+ * la proyección {@link ArticuloTarjeta} en lugar de la entidad completa):
+ * - {@link #listarTarjetasActivas(Integer, Limit)} → todos los activos.
+ * - {@link #listarTarjetasActivasPorCategoria(Integer, Integer, Limit)} → activos de una categoría.
+ * - {@link #buscarTarjeta(Integer)} → tarjeta de un producto activo por id (usada por la caché del servicio).
+ * - {@link #descontarStock(Integer, int)} → descuento atómico de stock en un solo UPDATE.
+ *
  * Al estar anotado con {@link Repository}, Spring lo detecta como un
  * componente de persistencia y permite inyección en servicios.
  *
@@ -20,6 +35,57 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface ArticuloRepository extends JpaRepository<Articulo, Integer> {
-    // Aquí se pueden definir consultas personalizadas si se necesitan,
-    // por ejemplo: List<Articulo> findByIsActiveTrue();
+
+    /**
+     * Tarjetas de productos activos con id mayor al cursor, ordenadas por id.
+     * Usa el índice idx_product_active (is_active + id implícito de InnoDB).
+     *
+     * @param despuesDe último id de la página anterior (0 para la primera).
+     * @param limite cantidad máxima de filas.
+     * @return tarjetas de la página.
+     */
+    @Query("select new com.tienda.app.model.ArticuloTarjeta(a.id, a.name, a.price, a.imageUrl, a.stockQuantity) " +
+            "from Articulo a where a.isActive = true and a.id > :despuesDe order by a.id")
+    List<ArticuloTarjeta> listarTarjetasActivas(@Param("despuesDe") Integer despuesDe, Limit limite);
+
+    /**
+     * Tarjetas de productos activos de una categoría con id mayor al cursor, ordenadas por id.
+     * Usa el índice idx_product_category_active (category_id, is_active + id implícito).
+     * Se filtra por la columna category_id sin hacer join con categories.
+     *
+     * @param categoriaId id de la categoría.
+     * @param despuesDe último id de la página anterior (0 para la primera).
+     * @param limite cantidad máxima de filas.
+     * @return tarjetas de la página.
+     */
+    @Query("select new com.tienda.app.model.ArticuloTarjeta(a.id, a.name, a.price, a.imageUrl, a.stockQuantity) " +
+            "from Articulo a where a.category.id = :categoriaId and a.isActive = true and a.id > :despuesDe " +
+            "order by a.id")
+    List<ArticuloTarjeta> listarTarjetasActivasPorCategoria(@Param("categoriaId") Integer categoriaId,
+                                                            @Param("despuesDe") Integer despuesDe, Limit limite);
+
+    /**
+     * Tarjeta (nombre, precio, imagen, stock y fecha de modificación) de un
+     * producto activo por su id.
+     *
+     * @param id id del producto.
+     * @return Optional con la tarjeta, vacío si no existe o no está a la venta.
+     */
+    @Query("select new com.tienda.app.model.ArticuloTarjeta(a.id, a.name, a.price, a.imageUrl, a.stockQuantity, " +
+            "a.updatedAt) from Articulo a where a.id = :id and a.isActive = true")
+    Optional<ArticuloTarjeta> buscarTarjeta(@Param("id") Integer id);
+
+    /**
+     * Descuenta stock en un único UPDATE condicional: la base de datos compara y
+     * resta en la misma sentencia, así dos compras simultáneas no pueden pisarse
+     * ni dejar el stock en negativo.
+     *
+     * @param id id del producto.
+     * @param cantidad unidades a descontar.
+     * @return filas actualizadas: 1 si se descontó, 0 si no existe o no hay stock suficiente.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Articulo a set a.stockQuantity = a.stockQuantity - :cantidad " +
+            "where a.id = :id and a.stockQuantity >= :cantidad")
+    int descontarStock(@Param("id") Integer id, @Param("cantidad") int cantidad);
 }
@@ -0,0 +1,28 @@
+package com.tienda.app.repository;
+
+import com.tienda.app.model.BankLedger;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface BankLedgerRepository extends JpaRepository<BankLedger, Long> {
+
+    /**
+     * Registra el débito recién aplicado a la tarjeta, tomando el id de la cuenta y
+     * el saldo resultante de la misma fila (que sigue bloqueada por el UPDATE).
+     *
+     * @return filas insertadas (1 si la tarjeta existe).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO bank_ledger (bank_id, amount, balance_after, reference) " +
+            "SELECT b.id, :monto, b.balance, :referencia FROM bank b WHERE b.card_number = :tarjeta",
+            nativeQuery = true)
+    int registrarDebito(@Param("tarjeta") String cardNumber, @Param("monto") BigDecimal monto,
+                        @Param("referencia") String referencia);
+
+    List<BankLedger> findByBankIdOrderByIdDesc(Integer bankId);
+}
@@ -2,7 +2,11 @@ package com.tienda.app.repository;
 
 import com.tienda.app.model.Bank;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 
 public interface BankRepository extends JpaRepository<Bank, Integer> {
@@ -10,4 +14,19 @@ public interface BankRepository extends JpaRepository<Bank, Integer> {
     boolean existsByCardNumberAndBrandAndExpMonthAndExpYearAndNameOnCard(String cardNumber, String brand,
                                                                          Integer expMonth, Integer expYear,
                                                                          String nameOnCard);
+
+    /**
+     * Debita la tarjeta en una sola sentencia: verifica marca, vencimiento y saldo
+     * y descuenta el monto de forma atómica. Dos cobros concurrentes a la misma
+     * tarjeta se serializan en el bloqueo de la fila, así el segundo ve el saldo
+     * ya descontado y no puede dejarlo negativo.
+     *
+     * @return filas actualizadas: 1 si el cobro se aplicó, 0 si la tarjeta no coincide o no alcanza el saldo.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Bank b set b.balance = b.balance - :monto " +
+            "where b.cardNumber = :tarjeta and b.brand = :marca and b.expMonth = :mes and b.expYear = :anio " +
+            "and b.balance >= :monto")
+    int debitar(@Param("tarjeta") String cardNumber, @Param("marca") String brand, @Param("mes") Byte expMonth,
+                @Param("anio") Short expYear, @Param("monto") BigDecimal monto);
 }
@@ -0,0 +1,96 @@
+package com.tienda.app.repository;
+
+import com.tienda.app.model.CarritoItem;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acceso a la tabla shopping_cart (carrito persistente de cada usuario).
+ *
+ * Se usa JDBC directo en lugar de una entidad JPA porque todas las escrituras
+ * son upserts en lote sobre la clave única uk_cart_user_product (user_id, product_id):
+ * - Las altas y cambios usan INSERT ... SELECT ... ON DUPLICATE KEY UPDATE; el
+ *   SELECT sobre products hace que las líneas de productos inexistentes se
+ *   ignoren en lugar de violar la clave foránea.
+ * - Las bajas son DELETE por (user_id, product_id).
+ */
+@Repository
+public class CarritoRepository {
+
+    private static final String SQL_LISTAR =
+            "SELECT sc.product_id, p.name, sc.unit_price, sc.quantity " +
+            "FROM shopping_cart sc JOIN products p ON p.id = sc.product_id " +
+            "WHERE sc.user_id = ? ORDER BY sc.id";
+
+    private static final String SQL_FIJAR =
+            "INSERT INTO shopping_cart (user_id, product_id, quantity, unit_price) " +
+            "SELECT ?, p.id, ?, ? FROM products p WHERE p.id = ? " +
+            "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), unit_price = VALUES(unit_price)";
+
+    private static final String SQL_SUMAR =
+            "INSERT INTO shopping_cart (user_id, product_id, quantity, unit_price) " +
+            "SELECT ?, p.id, ?, ? FROM products p WHERE p.id = ? " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), unit_price = VALUES(unit_price)";
+
+    private static final String SQL_BORRAR = "DELETE FROM shopping_cart WHERE user_id = ? AND product_id = ?";
+
+    private static final String SQL_VACIAR = "DELETE FROM shopping_cart WHERE user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CarritoRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Líneas guardadas del usuario, en el orden en que se agregaron.
+     */
+    public List<CarritoItem> listar(Integer userId) {
+        return jdbcTemplate.query(SQL_LISTAR, (rs, i) -> new CarritoItem(
+                rs.getInt("product_id"),
+                rs.getString("name"),
+                rs.getBigDecimal("unit_price"),
+                rs.getInt("quantity")), userId);
+    }
+
+    /**
+     * Deja cada producto con la cantidad indicada (upsert); cantidad 0 borra la línea.
+     *
+     * @param userId id del usuario.
+     * @param lineas productoId → línea con la cantidad final y el precio unitario.
+     */
+    public void guardar(Integer userId, Map<Integer, CarritoItem> lineas) {
+        List<Object[]> fijar = lineas.values().stream()
+                .filter(l -> l.getCantidad() > 0)
+                .map(l -> new Object[]{userId, l.getCantidad(), l.getPrecio(), l.getProductoId()})
+                .toList();
+        List<Object[]> borrar = lineas.values().stream()
+                .filter(l -> l.getCantidad() <= 0)
+                .map(l -> new Object[]{userId, l.getProductoId()})
+                .toList();
+
+        if (!fijar.isEmpty()) jdbcTemplate.batchUpdate(SQL_FIJAR, fijar);
+        if (!borrar.isEmpty()) jdbcTemplate.batchUpdate(SQL_BORRAR, borrar);
+    }
+
+    /**
+     * Suma las cantidades de las líneas a las ya guardadas (o las crea).
+     */
+    public void sumar(Integer userId, List<CarritoItem> lineas) {
+        if (lineas.isEmpty()) return;
+        jdbcTemplate.batchUpdate(SQL_SUMAR, lineas.stream()
+                .map(l -> new Object[]{userId, l.getCantidad(), l.getPrecio(), l.getProductoId()})
+                .toList());
+    }
+
+    /**
+     * Borra todas las líneas del usuario.
+     */
+    public void vaciar(Integer userId) {
+        jdbcTemplate.update(SQL_VACIAR, userId);
+    }
+}
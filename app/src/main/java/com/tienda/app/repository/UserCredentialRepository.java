@@ -2,6 +2,10 @@ package com.tienda.app.repository;
 
 import com.tienda.app.model.UserCredentialModel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -15,6 +19,7 @@ import java.util.Optional;
  * - {@link #findByEmailAndPasswordHash(String, String)} → usado para login.
  * - {@link #findByEmail(String)} → verifica si un email ya está registrado.
  * - {@link #findByEmailAndPasswordHashEquals(String, String)} → redundante, equivale al primero.
+ * - {@link #reemplazarHash(Integer, String, String)} → recalcula el hash tras cambiar algoritmo o costo.
  *
  * Tipo genérico:
  * - Entidad: UserCredentialModel
@@ -51,4 +56,18 @@ public interface UserCredentialRepository extends JpaRepository<UserCredentialMo
      * @return Optional con el usuario si existe, vacío si no.
      */
     Optional<UserCredentialModel> findByEmailAndPasswordHashEquals(String email, String passwordHash);
+
+    /**
+     * Reemplaza el hash de la contraseña solo si sigue siendo el mismo que se verificó
+     * (si el usuario cambió la contraseña mientras tanto, no se toca).
+     *
+     * @param id id del usuario.
+     * @param anterior hash verificado en el login.
+     * @param nuevo hash recalculado con el algoritmo y costo actuales.
+     * @return filas actualizadas (0 o 1).
+     */
+    @Transactional
+    @Modifying
+    @Query("update UserCredentialModel u set u.passwordHash = :nuevo where u.id = :id and u.passwordHash = :anterior")
+    int reemplazarHash(@Param("id") Integer id, @Param("anterior") String anterior, @Param("nuevo") String nuevo);
 }
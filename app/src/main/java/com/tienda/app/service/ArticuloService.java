@@ -1,32 +1,111 @@
 package com.tienda.app.service;
 
 import com.tienda.app.model.Articulo;
+import com.tienda.app.model.ArticuloTarjeta;
+import com.tienda.app.model.PaginaCursor;
+import com.tienda.app.model.CarritoItem;
+import com.tienda.app.model.ResultadoReserva;
 import com.tienda.app.repository.ArticuloRepository;
+import com.tienda.app.utility.CacheDosNiveles;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Servicio que gestiona la lógica de negocio relacionada con los artículos/productos.
  *
  * Provee métodos para:
  * - Listar todos los artículos.
+ * - Listar los artículos activos por páginas (paginación por cursor).
  * - Buscar un artículo por su ID.
+ * - Descontar stock con un UPDATE condicional atómico.
+ * - Reservar el stock de un carrito completo en un solo lote JDBC.
+ * - Derivar a {@link InventarioRayadoService} el stock de los productos configurados como "calientes".
+ * - Obtener la tarjeta (nombre, precio, imagen, stock) de un artículo desde una caché;
+ *   es la única fuente de nombre, precio y stock al agregar al carrito ({@link PreciosService}).
  * - Actualizar el stock después de una compra.
  * - Verificar si hay suficiente stock disponible para un pedido.
  */
 @Service
 public class ArticuloService {
 
+    /** Tamaño máximo de página permitido en el listado. */
+    public static final int TAMANO_PAGINA_MAXIMO = 100;
+
+    /** Descuenta stock solo si alcanza; parámetros: cantidad, id, cantidad. */
+    private static final String SQL_DESCONTAR =
+            "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?";
+
+    /** Devuelve stock reservado; parámetros: cantidad, id. */
+    private static final String SQL_DEVOLVER =
+            "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
+
+    private static final String SQL_ULTIMO_CAMBIO = "SELECT MAX(updated_at) FROM products";
+
+    /** Filas modificadas desde la marca (usa idx_product_updated). */
+    private static final String SQL_CAMBIADOS = "SELECT id, updated_at FROM products WHERE updated_at > ?";
+
+    /**
+     * Cuánto antes de la marca se vuelve a mirar: una transacción puede confirmar
+     * después de que se leyó una fila con fecha posterior a la suya.
+     */
+    private static final Duration SOLAPE_REFRESCO = Duration.ofSeconds(2);
+
     private final ArticuloRepository articuloRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final InventarioRayadoService inventarioRayado;
+
+    /** Executor de las recargas en segundo plano de la caché de tarjetas. */
+    private final ExecutorService executorCache = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Caché de lectura de tarjetas por id de producto (acotada y con TTL).
+     * Se invalida la entrada de un producto cada vez que este servicio cambia su
+     * stock, después del commit (ver {@link #invalidarAlConfirmar(Collection)});
+     * una lectura que empezó antes del commit no vuelve a guardar el valor viejo,
+     * porque la invalidación descarta las cargas en curso.
+     */
+    private final CacheDosNiveles<Integer, ArticuloTarjeta> tarjetas;
+
+    /** Mayor updated_at visto por {@link #refrescarTarjetas()}; null hasta la primera pasada. */
+    private volatile LocalDateTime marcaRefresco;
 
     /**
      * Inyección de dependencias mediante constructor.
      * @param articuloRepository repositorio JPA de artículos.
+     * @param jdbcTemplate acceso JDBC directo, usado para las reservas en lote.
+     * @param inventarioRayado inventario en memoria de los productos calientes.
      */
-    public ArticuloService(ArticuloRepository articuloRepository) {
+    public ArticuloService(ArticuloRepository articuloRepository,
+                           JdbcTemplate jdbcTemplate,
+                           InventarioRayadoService inventarioRayado,
+                           @Value("${articulos.cache.max-entradas:10000}") int maxEntradas,
+                           @Value("${articulos.cache.ttl-segundos:300}") long ttlSegundos) {
         this.articuloRepository = articuloRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventarioRayado = inventarioRayado;
+        this.tarjetas = new CacheDosNiveles<>("articulos.tarjetas", maxEntradas,
+                Duration.ofSeconds(ttlSegundos), executorCache);
     }
 
     /**
@@ -38,6 +117,34 @@ public class ArticuloService {
         return articuloRepository.findAll();
     }
 
+    /**
+     * Lista una página de artículos activos, opcionalmente filtrados por categoría.
+     *
+     * Se pide una fila de más para saber si existe una página siguiente sin
+     * necesidad de contar el total. Se devuelven proyecciones de solo lectura
+     * ({@link ArticuloTarjeta}), no entidades administradas.
+     *
+     * @param categoriaId id de la categoría, o null para todas.
+     * @param despuesDe último id de la página anterior, o null para la primera página.
+     * @param tamano cantidad de artículos por página (se ajusta a 1..{@value #TAMANO_PAGINA_MAXIMO}).
+     * @return la página con sus artículos y el cursor de la siguiente.
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursor<ArticuloTarjeta> listarPagina(Integer categoriaId, Integer despuesDe, int tamano) {
+        int limite = Math.max(1, Math.min(tamano, TAMANO_PAGINA_MAXIMO));
+        int cursor = despuesDe == null ? 0 : despuesDe;
+
+        List<ArticuloTarjeta> filas = categoriaId == null
+                ? articuloRepository.listarTarjetasActivas(cursor, Limit.of(limite + 1))
+                : articuloRepository.listarTarjetasActivasPorCategoria(categoriaId, cursor, Limit.of(limite + 1));
+
+        if (filas.size() <= limite) {
+            return new PaginaCursor<>(filas, null);
+        }
+        List<ArticuloTarjeta> pagina = filas.subList(0, limite);
+        return new PaginaCursor<>(pagina, pagina.get(limite - 1).id());
+    }
+
     /**
      * Busca un artículo por su identificador.
      *
@@ -48,25 +155,236 @@ public class ArticuloService {
         return articuloRepository.findById(id);
     }
 
+    /**
+     * Obtiene la tarjeta de un artículo (nombre, precio, imagen y stock) pasando por la caché.
+     * Para productos ya consultados no se hace ninguna consulta a la base de datos.
+     *
+     * El stock de los productos del inventario rayado se toma siempre de memoria:
+     * sus ventas no pasan por la base de datos, así que la tarjeta guardada no lo refleja.
+     *
+     * @param id id del artículo.
+     * @return Optional con la tarjeta si existe, vacío si no.
+     */
+    public Optional<ArticuloTarjeta> buscarTarjeta(Integer id) {
+        ArticuloTarjeta tarjeta = tarjetas.obtener(id, i -> articuloRepository.buscarTarjeta(i).orElse(null));
+        if (tarjeta != null && inventarioRayado.gestiona(id)) {
+            tarjeta = new ArticuloTarjeta(tarjeta.id(), tarjeta.name(), tarjeta.price(), tarjeta.imageUrl(),
+                    inventarioRayado.disponible(id), tarjeta.updatedAt());
+        }
+        return Optional.ofNullable(tarjeta);
+    }
+
+    /**
+     * Invalida las tarjetas de los productos modificados desde la última pasada
+     * (por ejemplo, un cambio de precio hecho por fuera o la venta en otra
+     * instancia). Lee solo las filas cambiadas, nunca el catálogo completo.
+     *
+     * La primera pasada solo fija la marca; lo cargado antes queda cubierto por el
+     * solape y, en el peor caso, por el TTL de la caché.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${articulos.cache.refresco-ms:5000}")
+    public void refrescarTarjetas() {
+        try {
+            LocalDateTime marca = marcaRefresco;
+            if (marca == null) {
+                LocalDateTime ultimo = jdbcTemplate.queryForObject(SQL_ULTIMO_CAMBIO, LocalDateTime.class);
+                marcaRefresco = ultimo != null ? ultimo : LocalDateTime.now();
+                return;
+            }
+            LocalDateTime[] mayor = {marca};
+            jdbcTemplate.query(SQL_CAMBIADOS, (RowCallbackHandler) rs -> {
+                tarjetas.invalidar(rs.getInt(1));
+                LocalDateTime cambio = rs.getObject(2, LocalDateTime.class);
+                if (cambio != null && cambio.isAfter(mayor[0])) mayor[0] = cambio;
+            }, marca.minus(SOLAPE_REFRESCO));
+            marcaRefresco = mayor[0];
+        } catch (DataAccessException e) {
+            // base de datos no disponible: se reintenta en la próxima pasada
+        }
+    }
+
+    /**
+     * Contadores de la caché de tarjetas (aciertos, fallos, desalojos).
+     */
+    public Map<String, Long> estadisticasCache() {
+        return tarjetas.estadisticas();
+    }
+
+    /**
+     * Descuenta stock de forma atómica (un solo UPDATE condicional, sin leer antes la fila).
+     *
+     * @param productoId id del producto vendido.
+     * @param cantidad cantidad a descontar.
+     * @return true si se descontó, false si el producto no existe o no hay stock suficiente.
+     */
+    @Transactional
+    public boolean descontarStock(Integer productoId, int cantidad) {
+        if (inventarioRayado.gestiona(productoId)) {
+            return inventarioRayado.descontar(productoId, cantidad);
+        }
+        boolean descontado = articuloRepository.descontarStock(productoId, cantidad) == 1;
+        if (descontado) invalidarAlConfirmar(List.of(productoId));
+        return descontado;
+    }
+
     /**
      * Actualiza el stock de un producto después de una venta.
      *
+     * Usa {@link #descontarStock(Integer, int)}; solo si el descuento falla se lee
+     * el producto para distinguir "no existe" de "stock insuficiente".
+     *
      * @param productoId id del producto vendido.
      * @param cantidadVendida cantidad a descontar del stock.
      * @throws RuntimeException si el producto no existe o si no hay stock suficiente.
      */
+    @Transactional
     public void actualizarStock(Integer productoId, int cantidadVendida) {
+        if (descontarStock(productoId, cantidadVendida)) return;
+
         Articulo producto = articuloRepository.findById(productoId)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        throw new RuntimeException("Stock insuficiente para el producto: " + producto.getName());
+    }
+
+    /**
+     * Verifica y descuenta el stock de todas las líneas de un carrito en una sola
+     * transacción y un solo lote JDBC (un viaje a la base de datos en lugar de uno
+     * o dos por línea).
+     *
+     * - Las líneas del mismo producto se suman y los UPDATE se envían ordenados por
+     *   id de producto, así dos compras concurrentes toman los bloqueos de fila en
+     *   el mismo orden y no pueden quedar en deadlock.
+     * - Cada UPDATE es condicional (stock &gt;= cantidad); si alguno no afecta filas,
+     *   la transacción se revierte completa y se informan las líneas fallidas.
+     *
+     * Requiere que el driver informe el conteo por sentencia (MySQL con
+     * rewriteBatchedStatements=false, el valor por defecto).
+     *
+     * Las líneas de productos del inventario rayado se descuentan primero en
+     * memoria; si luego falla el lote, o si se revierte la transacción que envuelve
+     * la reserva (por ejemplo, el checkout cuando el cobro es rechazado), esas
+     * unidades se devuelven.
+     *
+     * @param lineas líneas del carrito.
+     * @return resultado con las líneas que no pudieron reservarse.
+     */
+    @Transactional
+    public ResultadoReserva reservarStock(List<CarritoItem> lineas) {
+        Map<Integer, Integer> cantidades = agruparPorProducto(lineas);
+        Map<Integer, Integer> enMemoria = separarRayados(cantidades);
 
-        int nuevoStock = producto.getStockQuantity() - cantidadVendida;
+        List<Integer> sinStock = new ArrayList<>();
+        Map<Integer, Integer> tomadosEnMemoria = new TreeMap<>();
+        enMemoria.forEach((id, cantidad) -> {
+            if (inventarioRayado.descontar(id, cantidad)) tomadosEnMemoria.put(id, cantidad);
+            else sinStock.add(id);
+        });
+        boolean devolucionRegistrada = devolverAlRevertir(tomadosEnMemoria);
 
-        if (nuevoStock < 0) {
-            throw new RuntimeException("Stock insuficiente para el producto: " + producto.getName());
+        if (sinStock.isEmpty() && !cantidades.isEmpty()) {
+            List<Object[]> parametros = new ArrayList<>(cantidades.size());
+            cantidades.forEach((id, cantidad) -> parametros.add(new Object[]{cantidad, id, cantidad}));
+
+            int[] filas = jdbcTemplate.batchUpdate(SQL_DESCONTAR, parametros);
+            int i = 0;
+            for (Integer id : cantidades.keySet()) {
+                if (filas[i++] != 1) sinStock.add(id);
+            }
+        }
+
+        if (!sinStock.isEmpty()) {
+            if (!devolucionRegistrada) tomadosEnMemoria.forEach(inventarioRayado::devolver);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return new ResultadoReserva(lineas.stream()
+                    .filter(linea -> sinStock.contains(linea.getProductoId()))
+                    .toList());
         }
 
-        producto.setStockQuantity(nuevoStock);
-        articuloRepository.save(producto);
+        invalidarAlConfirmar(cantidades.keySet());
+        return new ResultadoReserva(List.of());
+    }
+
+    /**
+     * Registra la devolución de las unidades tomadas en memoria para cuando la
+     * transacción en curso se revierta (la base de datos deshace sola su parte).
+     *
+     * @return true si quedó registrada; false si no hay transacción sincronizada.
+     */
+    private boolean devolverAlRevertir(Map<Integer, Integer> tomadosEnMemoria) {
+        if (tomadosEnMemoria.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int estado) {
+                if (estado == STATUS_ROLLED_BACK) tomadosEnMemoria.forEach(inventarioRayado::devolver);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Devuelve al stock lo reservado con {@link #reservarStock(List)} (por ejemplo,
+     * si luego el cobro falla). También en un solo lote y en orden de id.
+     *
+     * @param lineas líneas del carrito reservadas previamente.
+     */
+    @Transactional
+    public void liberarStock(List<CarritoItem> lineas) {
+        Map<Integer, Integer> cantidades = agruparPorProducto(lineas);
+        separarRayados(cantidades).forEach(inventarioRayado::devolver);
+        if (cantidades.isEmpty()) return;
+
+        List<Object[]> parametros = new ArrayList<>(cantidades.size());
+        cantidades.forEach((id, cantidad) -> parametros.add(new Object[]{cantidad, id}));
+
+        jdbcTemplate.batchUpdate(SQL_DEVOLVER, parametros);
+        invalidarAlConfirmar(cantidades.keySet());
+    }
+
+    /**
+     * Invalida las tarjetas de los productos cuando la transacción en curso hace
+     * commit. Si se invalidaran antes, una lectura concurrente podría volver a
+     * guardar en la caché el stock viejo (todavía sin confirmar). Sin transacción
+     * sincronizada se invalidan de inmediato.
+     */
+    private void invalidarAlConfirmar(Collection<Integer> productos) {
+        if (productos.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            productos.forEach(tarjetas::invalidar);
+            return;
+        }
+        List<Integer> ids = List.copyOf(productos);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(tarjetas::invalidar);
+            }
+        });
+    }
+
+    /**
+     * Suma las cantidades por producto, ordenadas por id (orden fijo de bloqueo).
+     */
+    private static Map<Integer, Integer> agruparPorProducto(List<CarritoItem> lineas) {
+        Map<Integer, Integer> cantidades = new TreeMap<>();
+        for (CarritoItem linea : lineas) {
+            cantidades.merge(linea.getProductoId(), linea.getCantidad(), Integer::sum);
+        }
+        return cantidades;
+    }
+
+    /**
+     * Quita de {@code cantidades} los productos del inventario rayado y los devuelve aparte.
+     */
+    private Map<Integer, Integer> separarRayados(Map<Integer, Integer> cantidades) {
+        Map<Integer, Integer> rayados = new TreeMap<>();
+        cantidades.entrySet().removeIf(e -> {
+            if (!inventarioRayado.gestiona(e.getKey())) return false;
+            rayados.put(e.getKey(), e.getValue());
+            return true;
+        });
+        return rayados;
     }
 
     /**
@@ -77,8 +395,16 @@ public class ArticuloService {
      * @return true si hay stock suficiente, false en caso contrario.
      */
     public boolean verificarStockDisponible(Integer productoId, int cantidadSolicitada) {
+        if (inventarioRayado.gestiona(productoId)) {
+            return inventarioRayado.disponible(productoId) >= cantidadSolicitada;
+        }
         return articuloRepository.findById(productoId)
                 .map(producto -> producto.getStockQuantity() >= cantidadSolicitada)
                 .orElse(false);
     }
+
+    @PreDestroy
+    public void cerrar() {
+        executorCache.shutdownNow();
+    }
 }
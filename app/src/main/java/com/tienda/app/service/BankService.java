@@ -1,34 +1,52 @@
 package com.tienda.app.service;
 
-import com.tienda.app.model.Bank;
 import com.tienda.app.model.BillingMethod;
+import com.tienda.app.repository.BankLedgerRepository;
 import com.tienda.app.repository.BankRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 
 @Service
 public class BankService {
     private final BankRepository bankRepository;
-    public BankService(BankRepository bankRepository) {
+    private final BankLedgerRepository bankLedgerRepository;
+    public BankService(BankRepository bankRepository, BankLedgerRepository bankLedgerRepository) {
         this.bankRepository = bankRepository;
+        this.bankLedgerRepository = bankLedgerRepository;
     }
 
     //metodo para ejecutar transaccion de tarjeta de usuario vs cuenta en el banco
+    @Transactional
     public Boolean ejecutarTransaccion(BillingMethod billingMethod, BigDecimal monto) {
-        Bank bank = bankRepository.findByCardNumber(billingMethod.getCardNumber()).orElse(null);
-        if (bank == null) {
+        return ejecutarTransaccion(billingMethod, monto, null);
+    }
+
+    /**
+     * Cobra el monto a la tarjeta y lo anota en el libro mayor (bank_ledger).
+     *
+     * La verificación (proveedor, número, mes y año de expiración, saldo) y el débito
+     * son un solo UPDATE condicional, sin leer la fila antes: un viaje a la base de
+     * datos y sin carrera entre dos cobros simultáneos a la misma tarjeta. El
+     * movimiento del libro se escribe en la misma transacción.
+     *
+     * @param billingMethod tarjeta del usuario.
+     * @param monto monto a cobrar.
+     * @param referencia referencia del cobro para el libro mayor (número de orden), o null.
+     * @return true si el cobro se aplicó.
+     */
+    @Transactional
+    public Boolean ejecutarTransaccion(BillingMethod billingMethod, BigDecimal monto, String referencia) {
+        if (billingMethod.getExpMonth() == null || billingMethod.getExpYear() == null) {
             return false;
         }
-        //Verificar que sean los mismos brand(proveedor, numero de tarjeta, mes y anno de expiracion)
-        if(bank.getBrand().equals(billingMethod.getBrand()) && bank.getCardNumber().equals(billingMethod.getCardNumber()) &&
-        bank.getExpMonth().equals(billingMethod.getExpMonth()) && bank.getExpYear().equals(billingMethod.getExpYear())) {
-            if(bank.getBalance().compareTo(monto) >= 0) {
-                bank.setBalance(bank.getBalance().subtract(monto));
-                bankRepository.save(bank);
-                return true;
-            }
+        int filas = bankRepository.debitar(billingMethod.getCardNumber(), billingMethod.getBrand(),
+                billingMethod.getExpMonth().byteValue(), billingMethod.getExpYear().shortValue(), monto);
+        if (filas != 1) {
+            return false;
         }
-        return false;
+        bankLedgerRepository.registrarDebito(billingMethod.getCardNumber(), monto, referencia);
+        return true;
     }
 }
@@ -34,15 +34,17 @@ public class BillingMethodService {
     /**
      * Obtiene todos los métodos de pago de un usuario.
      *
-     * Además, aplica {@link BillingMethod#clearFields()} para enmascarar datos sensibles.
+     * Devuelve copias enmascaradas ({@link BillingMethod#copiaEnmascarada()}) y no
+     * las entidades administradas: con open-in-view activo, enmascarar la entidad
+     * haría que el siguiente flush guardara el número enmascarado.
      *
      * @param id id del usuario.
      * @return lista de {@link BillingMethod} con datos enmascarados.
      */
     public List<BillingMethod> findAllByUserId(Integer id) {
-        List<BillingMethod> l1 = billingMethodRepository.findAllByUser_Id(id);
-        l1.forEach(BillingMethod::clearFields); // Enmascarar tarjetas antes de mostrarlas
-        return l1;
+        return billingMethodRepository.findAllByUser_Id(id).stream()
+                .map(BillingMethod::copiaEnmascarada) // Enmascarar tarjetas antes de mostrarlas
+                .toList();
     }
 
     /**
@@ -0,0 +1,184 @@
+package com.tienda.app.service;
+
+import com.tienda.app.model.Carrito;
+import com.tienda.app.model.CarritoItem;
+import com.tienda.app.model.UsuarioSesion;
+import com.tienda.app.repository.CarritoRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Mantiene el carrito de los usuarios con sesión iniciada en la tabla shopping_cart,
+ * para que no se pierda al cerrar sesión o reiniciar, y cualquier nodo pueda servirlo.
+ *
+ * - Cada cambio del carrito en sesión se registra como pendiente: solo se guarda
+ *   la cantidad final por producto, así varios clics seguidos sobre el mismo
+ *   producto terminan en una sola escritura.
+ * - Cada carrito.persistencia.flush-ms los pendientes de todos los usuarios se
+ *   escriben en lote ({@link CarritoRepository#guardar(Integer, Map)}).
+ * - Al iniciar sesión, el carrito anónimo de la sesión se suma al guardado y el
+ *   resultado pasa a ser el carrito de la sesión ({@link #alIngresar}).
+ * - La escritura de los pendientes de un usuario y el vaciado de su carrito
+ *   toman el mismo candado (por franjas de usuarios): un flush en curso no puede
+ *   volver a escribir líneas de un carrito recién pagado, ni dos flushes
+ *   escribir fuera de orden los cambios de la misma línea.
+ *
+ * Solo se persisten líneas de productos de la tabla products; las demás (por
+ * ejemplo, Pokémon) permanecen únicamente en la sesión.
+ */
+@Service
+public class CarritoPersistenteService {
+
+    private static final int FRANJAS = 64;
+
+    private final CarritoRepository carritoRepository;
+
+    /** userId → (productoId → línea con la cantidad final; cantidad 0 = borrar). */
+    private final Map<Integer, Map<Integer, CarritoItem>> pendientes = new ConcurrentHashMap<>();
+
+    /** Candados por franja de userId para escribir y vaciar. */
+    private final ReentrantLock[] candados = new ReentrantLock[FRANJAS];
+
+    public CarritoPersistenteService(CarritoRepository carritoRepository) {
+        this.carritoRepository = carritoRepository;
+        for (int i = 0; i < FRANJAS; i++) {
+            candados[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Registra el estado final de una línea del carrito del usuario (se escribe más tarde).
+     *
+     * Se encola una copia: la línea de la sesión sigue cambiando con cada request
+     * (y el flush corre en otro hilo), mientras que la copia no tiene quien la
+     * modifique fuera del paquete model.
+     *
+     * @param userId id del usuario.
+     * @param productoId id del producto.
+     * @param linea línea actual del carrito, o null si se eliminó.
+     */
+    public void registrar(Integer userId, Integer productoId, CarritoItem linea) {
+        CarritoItem estado = linea != null
+                ? new CarritoItem(productoId, linea.getNombre(), linea.getPrecioCentavos(), linea.getCantidad(),
+                        linea.getVersionPrecio())
+                : new CarritoItem(productoId, null, BigDecimal.ZERO, 0);
+        pendientes.compute(userId, (id, cambios) -> {
+            if (cambios == null) cambios = new LinkedHashMap<>();
+            cambios.put(productoId, estado);
+            return cambios;
+        });
+    }
+
+    /**
+     * Escribe los pendientes de todos los usuarios.
+     */
+    @Scheduled(fixedDelayString = "${carrito.persistencia.flush-ms:500}")
+    public void escribirPendientes() {
+        for (Integer userId : pendientes.keySet()) {
+            escribirPendientes(userId);
+        }
+    }
+
+    /**
+     * Escribe los pendientes de un usuario (por ejemplo, antes de cerrar su sesión).
+     */
+    public void escribirPendientes(Integer userId) {
+        ReentrantLock candado = candado(userId);
+        candado.lock();
+        try {
+            Map<Integer, CarritoItem> cambios = pendientes.remove(userId);
+            if (cambios == null) return;
+            try {
+                carritoRepository.guardar(userId, cambios);
+            } catch (DataAccessException e) {
+                // se reintenta en la próxima pasada; los cambios más nuevos tienen prioridad
+                pendientes.compute(userId, (id, nuevos) -> {
+                    if (nuevos == null) return cambios;
+                    cambios.forEach(nuevos::putIfAbsent);
+                    return nuevos;
+                });
+            }
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Carrito que queda en la sesión al iniciar sesión.
+     *
+     * - Sin usuario previo en la sesión: el carrito es anónimo y se une al guardado.
+     * - El mismo usuario vuelve a ingresar: el carrito de la sesión ya es el suyo
+     *   (sumarlo otra vez duplicaría las cantidades), así que se conserva.
+     * - Otro usuario: el carrito de la sesión es del anterior y no se mezcla; se
+     *   carga el guardado del nuevo usuario.
+     *
+     * @param userId id del usuario que inició sesión.
+     * @param anterior usuario que tenía la sesión antes del login, o null.
+     * @param carritoSesion carrito de la sesión antes del login (puede ser null).
+     * @return carrito resultante, para dejarlo en la sesión.
+     */
+    public Carrito alIngresar(Integer userId, UsuarioSesion anterior, Carrito carritoSesion) {
+        if (anterior == null) return fusionarAlIngresar(userId, carritoSesion);
+        if (anterior.getId().equals(userId) && carritoSesion != null) return carritoSesion;
+        return fusionarAlIngresar(userId, null);
+    }
+
+    /**
+     * Une el carrito anónimo de la sesión con el guardado del usuario al iniciar sesión.
+     *
+     * @param userId id del usuario que inició sesión.
+     * @param anonimo carrito de la sesión antes del login (puede ser null).
+     * @return carrito resultante, para dejarlo en la sesión.
+     */
+    @Transactional
+    public Carrito fusionarAlIngresar(Integer userId, Carrito anonimo) {
+        escribirPendientes(userId);
+        List<CarritoItem> lineasAnonimas = anonimo == null ? List.of() : anonimo.lineas();
+        carritoRepository.sumar(userId, lineasAnonimas);
+
+        Carrito carrito = new Carrito();
+        for (CarritoItem linea : carritoRepository.listar(userId)) {
+            carrito.agregar(linea.getProductoId(), linea.getNombre(), linea.getPrecio(), linea.getCantidad());
+        }
+        // las líneas que no se pudieron guardar (productos fuera de products) siguen en la sesión
+        for (CarritoItem linea : lineasAnonimas) {
+            if (carrito.getItem(linea.getProductoId()) == null) {
+                carrito.agregar(linea.getProductoId(), linea.getNombre(), linea.getPrecio(), linea.getCantidad());
+            }
+        }
+        return carrito;
+    }
+
+    /**
+     * Borra el carrito guardado del usuario (carrito vaciado o compra finalizada).
+     */
+    public void vaciar(Integer userId) {
+        ReentrantLock candado = candado(userId);
+        candado.lock();
+        try {
+            pendientes.remove(userId);
+            carritoRepository.vaciar(userId);
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    private ReentrantLock candado(Integer userId) {
+        return candados[Math.floorMod(userId.hashCode(), FRANJAS)];
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        escribirPendientes();
+    }
+}
@@ -0,0 +1,136 @@
+package com.tienda.app.service;
+
+import com.tienda.app.model.BillingMethod;
+import com.tienda.app.model.CarritoItem;
+import com.tienda.app.model.ResultadoCompra;
+import com.tienda.app.model.ResultadoReserva;
+import com.tienda.app.utility.CompraRechazadaException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Finaliza una compra en una sola transacción:
+ * 1. Inserta la cabecera en orders usando la clave de idempotencia del formulario
+ *    como order_number (UNIQUE). Si ya existe, la petición es un reenvío (doble
+ *    clic, recarga, reintento): se devuelve la orden existente sin volver a cobrar.
+ * 2. Reserva el stock de todo el carrito ({@link ArticuloService#reservarStock(List)}).
+ * 3. Cobra la tarjeta ({@link BankService#ejecutarTransaccion}).
+ * 4. Inserta las líneas en order_items en un solo lote y confirma la orden.
+ *
+ * Si falla el stock o el pago se lanza {@link CompraRechazadaException} y se
+ * revierte todo: no queda orden, ni stock descontado, ni cobro.
+ *
+ * Dos envíos simultáneos con la misma clave se serializan en el índice único de
+ * order_number: el segundo espera al primero y, si este confirmó, recibe su orden.
+ */
+@Service
+public class CompraService {
+
+    private static final String SQL_ORDEN =
+            "INSERT INTO orders (user_id, user_fullname, order_number, order_status, total) VALUES (?, ?, ?, 'pending', ?)";
+
+    private static final String SQL_CONFIRMAR = "UPDATE orders SET order_status = 'confirmed' WHERE id = ?";
+
+    private static final String SQL_ITEM = "INSERT INTO order_items (order_id, product_id, quantity) VALUES (?, ?, ?)";
+
+    private static final String SQL_BUSCAR =
+            "SELECT id, user_id, total FROM orders WHERE order_number = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ArticuloService articuloService;
+    private final BankService bankService;
+
+    public CompraService(JdbcTemplate jdbcTemplate, ArticuloService articuloService, BankService bankService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.articuloService = articuloService;
+        this.bankService = bankService;
+    }
+
+    /**
+     * @param clave clave de idempotencia del formulario de checkout (se guarda como order_number).
+     * @param userId id del usuario que compra.
+     * @param nombreCompleto nombre del cliente para la orden.
+     * @param metodoPago tarjeta elegida.
+     * @param lineas líneas del carrito.
+     * @param total total a cobrar.
+     * @return la orden creada, o la existente si la clave ya se había usado.
+     * @throws CompraRechazadaException si no hay stock, el banco rechaza el cobro o la clave es de otro usuario.
+     */
+    @Transactional
+    public ResultadoCompra comprar(String clave, Integer userId, String nombreCompleto, BillingMethod metodoPago,
+                                   List<CarritoItem> lineas, BigDecimal total) {
+        Integer ordenId;
+        try {
+            ordenId = insertarOrden(clave, userId, nombreCompleto, total);
+        } catch (DuplicateKeyException e) {
+            return ordenExistente(clave, userId);
+        }
+
+        ResultadoReserva reserva = articuloService.reservarStock(lineas);
+        if (!reserva.exitosa()) {
+            throw new CompraRechazadaException(CompraRechazadaException.Motivo.SIN_STOCK,
+                    "Sin stock suficiente para: " + reserva.fallidas().stream()
+                            .map(CarritoItem::getNombre).collect(Collectors.joining(", ")));
+        }
+
+        if (metodoPago == null || !bankService.ejecutarTransaccion(metodoPago, total, clave)) {
+            throw new CompraRechazadaException(CompraRechazadaException.Motivo.PAGO_RECHAZADO,
+                    "No se pudo realizar la compra falta dinero o fallo conexion banco");
+        }
+
+        jdbcTemplate.batchUpdate(SQL_ITEM, lineas.stream()
+                .map(linea -> new Object[]{ordenId, linea.getProductoId(), linea.getCantidad()})
+                .toList());
+        jdbcTemplate.update(SQL_CONFIRMAR, ordenId);
+        return new ResultadoCompra(ordenId, clave, total, false);
+    }
+
+    /**
+     * Busca una orden ya confirmada por su clave de idempotencia.
+     *
+     * @param clave clave del formulario de checkout.
+     * @param userId usuario dueño de la orden.
+     * @return la orden, o vacío si la clave no se usó (o es de otro usuario).
+     */
+    @Transactional(readOnly = true)
+    public Optional<ResultadoCompra> buscar(String clave, Integer userId) {
+        return jdbcTemplate.query(SQL_BUSCAR, (rs, i) -> rs.getInt("user_id") == userId
+                        ? new ResultadoCompra(rs.getInt("id"), clave, rs.getBigDecimal("total"), true) : null, clave)
+                .stream().filter(Objects::nonNull).findFirst();
+    }
+
+    private Integer insertarOrden(String clave, Integer userId, String nombreCompleto, BigDecimal total) {
+        KeyHolder llave = new GeneratedKeyHolder();
+        jdbcTemplate.update(conexion -> {
+            PreparedStatement ps = conexion.prepareStatement(SQL_ORDEN, Statement.RETURN_GENERATED_KEYS);
+            ps.setInt(1, userId);
+            ps.setString(2, nombreCompleto);
+            ps.setString(3, clave);
+            ps.setBigDecimal(4, total);
+            return ps;
+        }, llave);
+        return llave.getKey().intValue();
+    }
+
+    private ResultadoCompra ordenExistente(String clave, Integer userId) {
+        return jdbcTemplate.queryForObject(SQL_BUSCAR, (rs, i) -> {
+            if (rs.getInt("user_id") != userId) {
+                throw new CompraRechazadaException(CompraRechazadaException.Motivo.CLAVE_AJENA,
+                        "Este formulario de compra ya no es válido, vuelve a confirmar tu pedido.");
+            }
+            return new ResultadoCompra(rs.getInt("id"), clave, rs.getBigDecimal("total"), true);
+        }, clave);
+    }
+}
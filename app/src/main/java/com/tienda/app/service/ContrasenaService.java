@@ -0,0 +1,161 @@
+package com.tienda.app.service;
+
+import com.tienda.app.utility.HistogramaLatencia;
+import com.tienda.app.utility.ServicioNoDisponibleException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Ejecuta el hash y la verificación de contraseñas (BCrypt, cientos de ms de CPU
+ * cada uno) en un pool propio y acotado, en lugar de hacerlo en los hilos de Tomcat.
+ *
+ * - Hilos: tantos como núcleos (hash.hilos, 0 = núcleos disponibles), así una
+ *   ráfaga de logins no puede ocupar más CPU que esa.
+ * - Cola: como máximo hash.cola-maxima operaciones esperando; si está llena se
+ *   rechaza de inmediato con {@link ServicioNoDisponibleException} (HTTP 503).
+ * - Espera: el hilo de la petición espera a lo sumo hash.espera-maxima-ms.
+ *
+ * Así el catálogo y el carrito siguen respondiendo durante una ráfaga de logins
+ * (o un ataque de credenciales): solo los logins sobrantes reciben el 503.
+ *
+ * Se mide la latencia de cada operación (espera en cola + hash) con un
+ * {@link HistogramaLatencia}.
+ *
+ * Si el algoritmo o el costo configurados cambian, los hashes viejos se
+ * recalculan en segundo plano tras un login exitoso ({@link #rehacerSiHaceFalta}).
+ */
+@Service
+public class ContrasenaService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long esperaMaximaMs;
+
+    private final HistogramaLatencia latenciaCodificar = new HistogramaLatencia("hash.codificar");
+    private final HistogramaLatencia latenciaVerificar = new HistogramaLatencia("hash.verificar");
+    private final AtomicLong rechazos = new AtomicLong();
+    private final AtomicLong vencidas = new AtomicLong();
+    private final AtomicLong rehechos = new AtomicLong();
+
+    public ContrasenaService(PasswordEncoder passwordEncoder,
+                             @Value("${hash.hilos:0}") int hilos,
+                             @Value("${hash.cola-maxima:32}") int colaMaxima,
+                             @Value("${hash.espera-maxima-ms:3000}") long esperaMaximaMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.esperaMaximaMs = esperaMaximaMs;
+        int tamano = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(tamano, tamano, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(colaMaxima), tarea -> {
+            Thread hilo = new Thread(tarea, "hash-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Calcula el hash de una contraseña nueva.
+     *
+     * @throws ServicioNoDisponibleException si el pool está saturado.
+     */
+    public String codificar(String contrasena) {
+        return ejecutar(() -> passwordEncoder.encode(contrasena), latenciaCodificar);
+    }
+
+    /**
+     * Verifica una contraseña contra su hash guardado.
+     *
+     * @throws ServicioNoDisponibleException si el pool está saturado.
+     */
+    public boolean verificar(String contrasena, String hash) {
+        return ejecutar(() -> passwordEncoder.matches(contrasena, hash), latenciaVerificar);
+    }
+
+    /**
+     * Si el hash guardado no usa el algoritmo o el costo actuales, calcula uno nuevo
+     * en el pool sin esperar el resultado y lo entrega a {@code guardar}. Si el pool
+     * está lleno no se hace nada: se volverá a intentar en el siguiente login.
+     *
+     * Solo debe llamarse después de verificar la contraseña con éxito.
+     *
+     * @param contrasena contraseña en texto plano recién verificada.
+     * @param hash hash guardado.
+     * @param guardar recibe el hash nuevo (se ejecuta en un hilo del pool).
+     */
+    public void rehacerSiHaceFalta(String contrasena, String hash, Consumer<String> guardar) {
+        if (!passwordEncoder.upgradeEncoding(hash)) return;
+        try {
+            executor.execute(() -> {
+                long inicio = System.nanoTime();
+                String nuevo = passwordEncoder.encode(contrasena);
+                latenciaCodificar.registrar(System.nanoTime() - inicio);
+                guardar.accept(nuevo);
+                rehechos.incrementAndGet();
+            });
+        } catch (RejectedExecutionException e) {
+            // pool saturado: el hash viejo sigue siendo válido
+        }
+    }
+
+    /**
+     * Latencias por operación, rechazos y estado del pool.
+     */
+    public Map<String, Long> estadisticas() {
+        Map<String, Long> stats = new LinkedHashMap<>(latenciaCodificar.estadisticas());
+        stats.putAll(latenciaVerificar.estadisticas());
+        stats.put("hash.rechazos", rechazos.get());
+        stats.put("hash.vencidas", vencidas.get());
+        stats.put("hash.rehechos", rehechos.get());
+        stats.put("hash.activas", (long) executor.getActiveCount());
+        stats.put("hash.enCola", (long) executor.getQueue().size());
+        return stats;
+    }
+
+    private <T> T ejecutar(Callable<T> operacion, HistogramaLatencia latencia) {
+        long inicio = System.nanoTime();
+        Future<T> pendiente;
+        try {
+            pendiente = executor.submit(operacion);
+        } catch (RejectedExecutionException e) {
+            rechazos.incrementAndGet();
+            throw new ServicioNoDisponibleException("Demasiados inicios de sesión simultáneos, intenta de nuevo");
+        }
+        try {
+            return pendiente.get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            pendiente.cancel(true);
+            vencidas.incrementAndGet();
+            throw new ServicioNoDisponibleException("Demasiados inicios de sesión simultáneos, intenta de nuevo");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pendiente.cancel(true);
+            throw new ServicioNoDisponibleException("Operación de contraseña interrumpida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) throw causa;
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            latencia.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,188 @@
+package com.tienda.app.service;
+
+import com.tienda.app.utility.FiltroBloom;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtro de Bloom con los emails registrados, para responder "este email no
+ * existe" sin consultar la base de datos (login con emails inventados, registro
+ * de emails nuevos).
+ *
+ * - Se reconstruye al arrancar (en segundo plano) leyendo user_credentials en streaming.
+ * - Se actualiza en cada registro hecho por esta instancia.
+ * - Los registros hechos por otras instancias se incorporan antes de confiar en un
+ *   "no existe": se leen los usuarios con id mayor al último visto, como mucho una
+ *   vez cada usuarios.bloom.sincronizar-ms (con 0, antes de cada "no existe").
+ *   Dentro de esa ventana, un email recién registrado en otra instancia puede
+ *   recibir un "no existe"; el siguiente intento ya lo encuentra.
+ * - Mientras no esté construido (o si la carga falla) responde siempre "quizá",
+ *   así nunca se niega un email que sí existe.
+ *
+ * Los emails se normalizan igual que los compara MySQL con la intercalación
+ * utf8mb4 por defecto (sin distinguir mayúsculas ni acentos), para no dar falsos
+ * negativos. Los usuarios borrados quedan en el filtro hasta el próximo arranque
+ * (solo producen una consulta de más).
+ */
+@Service
+public class EmailsRegistradosService {
+
+    /**
+     * Los id AUTO_INCREMENT pueden confirmarse fuera de orden (un id menor que el
+     * último visto aparece después); cada puesta al día vuelve a leer este margen.
+     * Agregar dos veces el mismo email al filtro no tiene efecto.
+     */
+    private static final int SOLAPE_IDS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long esperados;
+    private final double falsosPositivos;
+    private final long sincronizarNanos;
+
+    /** Protege la publicación del filtro frente a {@link #registrar(String)}. */
+    private final Object publicacion = new Object();
+    /** Serializa las puestas al día; solo una consulta a la vez. */
+    private final Object sincronizacion = new Object();
+
+    private volatile FiltroBloom filtro;
+    private FiltroBloom enConstruccion;
+    /** Mayor id de usuario incorporado al filtro publicado. */
+    private volatile long ultimoId;
+    private long ultimaSincronizacion;
+
+    private final LongAdder descartados = new LongAdder();
+    private final LongAdder posibles = new LongAdder();
+    private final LongAdder sincronizaciones = new LongAdder();
+
+    public EmailsRegistradosService(JdbcTemplate jdbcTemplate,
+                                    @Value("${usuarios.bloom.esperados:1000000}") long esperados,
+                                    @Value("${usuarios.bloom.falsos-positivos:0.01}") double falsosPositivos,
+                                    @Value("${usuarios.bloom.sincronizar-ms:1000}") long sincronizarMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.esperados = esperados;
+        this.falsosPositivos = falsosPositivos;
+        this.sincronizarNanos = TimeUnit.MILLISECONDS.toNanos(sincronizarMs);
+    }
+
+    /**
+     * Construye el filtro en segundo plano para no demorar el arranque.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alArrancar() {
+        Thread.ofVirtual().name("bloom-emails").start(this::reconstruir);
+    }
+
+    /**
+     * Carga todos los emails en un filtro nuevo y lo publica. Si falla, se sigue
+     * sin filtro (todas las búsquedas van a la base de datos).
+     */
+    public void reconstruir() {
+        try {
+            Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_credentials", Long.class);
+            FiltroBloom nuevo = new FiltroBloom(Math.max(esperados, 2 * (total == null ? 0 : total)), falsosPositivos);
+            synchronized (publicacion) {
+                enConstruccion = nuevo;
+            }
+            long[] maximo = {0};
+            jdbcTemplate.query(conexion -> {
+                var ps = conexion.prepareStatement("SELECT id, email FROM user_credentials");
+                ps.setFetchSize(Integer.MIN_VALUE); // MySQL: leer fila a fila sin cargar todo en memoria
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                maximo[0] = Math.max(maximo[0], rs.getLong(1));
+                nuevo.agregar(normalizar(rs.getString(2)));
+            });
+            synchronized (publicacion) {
+                // dentro del cerrojo: un registro concurrente ve el filtro nuevo o el que se construía, nunca ninguno
+                filtro = nuevo;
+                ultimoId = maximo[0];
+                enConstruccion = null;
+            }
+        } catch (DataAccessException e) {
+            // sin filtro: se consulta siempre la base de datos
+            synchronized (publicacion) {
+                enConstruccion = null;
+            }
+        }
+    }
+
+    /**
+     * @return false si el email seguro no está registrado; true si quizá lo está
+     *         (o si el filtro aún no está disponible).
+     */
+    public boolean podriaExistir(String email) {
+        FiltroBloom actual = filtro;
+        if (actual == null || email == null) return true;
+        String normalizado = normalizar(email);
+        boolean podria = actual.podriaContener(normalizado)
+                || (ponerseAlDia(actual) && actual.podriaContener(normalizado));
+        (podria ? posibles : descartados).increment();
+        return podria;
+    }
+
+    /**
+     * Agrega un email recién registrado (también al filtro que se esté reconstruyendo).
+     */
+    public void registrar(String email) {
+        String normalizado = normalizar(email);
+        synchronized (publicacion) {
+            if (filtro != null) filtro.agregar(normalizado);
+            if (enConstruccion != null) enConstruccion.agregar(normalizado);
+        }
+    }
+
+    /**
+     * Incorpora al filtro los usuarios creados desde la última puesta al día (por
+     * ejemplo, en otra instancia), salvo que esta se haya hecho hace menos de
+     * usuarios.bloom.sincronizar-ms.
+     *
+     * @return true si se leyó la base de datos.
+     */
+    private boolean ponerseAlDia(FiltroBloom actual) {
+        synchronized (sincronizacion) {
+            long ahora = System.nanoTime();
+            if (ultimaSincronizacion != 0 && ahora - ultimaSincronizacion < sincronizarNanos) return false;
+            try {
+                long[] maximo = {ultimoId};
+                jdbcTemplate.query("SELECT id, email FROM user_credentials WHERE id > ?", (RowCallbackHandler) rs -> {
+                    maximo[0] = Math.max(maximo[0], rs.getLong(1));
+                    actual.agregar(normalizar(rs.getString(2)));
+                }, Math.max(0, ultimoId - SOLAPE_IDS));
+                if (filtro == actual) ultimoId = maximo[0];
+            } catch (DataAccessException e) {
+                return false; // se confía en el filtro; se reintenta en la próxima ventana
+            }
+            ultimaSincronizacion = ahora;
+            sincronizaciones.increment();
+            return true;
+        }
+    }
+
+    public Map<String, Long> estadisticas() {
+        FiltroBloom actual = filtro;
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("usuarios.bloom.bits", actual == null ? 0 : actual.getCantidadBits());
+        stats.put("usuarios.bloom.funciones", actual == null ? 0 : (long) actual.getFunciones());
+        stats.put("usuarios.bloom.descartados", descartados.sum());
+        stats.put("usuarios.bloom.posibles", posibles.sum());
+        stats.put("usuarios.bloom.sincronizaciones", sincronizaciones.sum());
+        return stats;
+    }
+
+    static String normalizar(String email) {
+        String sinAcentos = Normalizer.normalize(email.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return sinAcentos.toLowerCase(Locale.ROOT);
+    }
+}
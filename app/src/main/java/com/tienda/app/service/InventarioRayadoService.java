@@ -0,0 +1,187 @@
+package com.tienda.app.service;
+
+import com.tienda.app.utility.StockRayado;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Inventario en memoria para productos "calientes" (ofertas relámpago).
+ *
+ * Para los productos listados en inventario.rayado.productos el stock deja de
+ * descontarse fila por fila en la base de datos (donde todas las compras se
+ * serializan en el bloqueo de la misma fila) y pasa a un {@link StockRayado}:
+ * - Al primer uso se lee el stock actual de la tabla products y se reparte en
+ *   inventario.rayado.franjas contadores.
+ * - Cada compra descuenta en memoria y acumula lo vendido como pendiente.
+ * - Cada inventario.rayado.flush-ms los pendientes se escriben en la base de
+ *   datos en un solo lote (write-behind), y también al apagar la aplicación.
+ * - En esa misma pasada se vuelve a leer el stock de la base de datos: lo que
+ *   cambió por fuera de esta instancia (una reposición, un ajuste manual) se
+ *   suma o resta al stock en memoria.
+ *
+ * Limitaciones: solo es válido con una única instancia de la aplicación, y una
+ * caída abrupta pierde los pendientes no escritos (la base de datos queda con
+ * más stock del real, nunca con menos). Con la lista vacía el modo queda apagado.
+ */
+@Service
+public class InventarioRayadoService {
+
+    private static final String SQL_LEER = "SELECT stock_quantity FROM products WHERE id = ?";
+    private static final String SQL_ESCRIBIR = "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Set<Integer> productos;
+    private final int franjas;
+
+    private final Map<Integer, StockRayado> stocks = new ConcurrentHashMap<>();
+    /**
+     * Unidades vendidas (neto de devoluciones) aún no escritas en la base de datos.
+     * Es un AtomicLong y no un LongAdder: al escribir hay que tomar y poner en cero
+     * el valor de forma atómica mientras siguen llegando ventas.
+     */
+    private final Map<Integer, AtomicLong> pendientes = new ConcurrentHashMap<>();
+    /** Stock que debería tener la base de datos según lo leído y lo escrito por esta instancia. */
+    private final Map<Integer, Long> esperadoEnBase = new ConcurrentHashMap<>();
+
+    public InventarioRayadoService(JdbcTemplate jdbcTemplate,
+                                   @Value("${inventario.rayado.productos:}") String productos,
+                                   @Value("${inventario.rayado.franjas:8}") int franjas) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productos = Arrays.stream(productos.split(","))
+                .map(String::trim)
+                .filter(p -> !p.isEmpty())
+                .map(Integer::valueOf)
+                .collect(Collectors.toUnmodifiableSet());
+        this.franjas = franjas;
+    }
+
+    /**
+     * Indica si el stock del producto se maneja en este inventario.
+     */
+    public boolean gestiona(Integer productoId) {
+        return productos.contains(productoId);
+    }
+
+    /**
+     * Descuenta unidades en memoria.
+     *
+     * @return true si se descontó, false si el producto no existe o no hay stock suficiente.
+     */
+    public boolean descontar(Integer productoId, int cantidad) {
+        StockRayado stock = stock(productoId);
+        if (stock == null || !stock.descontar(cantidad)) return false;
+        pendientes.computeIfAbsent(productoId, id -> new AtomicLong()).addAndGet(cantidad);
+        return true;
+    }
+
+    /**
+     * Devuelve unidades descontadas previamente con {@link #descontar(Integer, int)}.
+     */
+    public void devolver(Integer productoId, int cantidad) {
+        StockRayado stock = stock(productoId);
+        if (stock == null) return;
+        stock.devolver(cantidad);
+        pendientes.computeIfAbsent(productoId, id -> new AtomicLong()).addAndGet(-cantidad);
+    }
+
+    /**
+     * Stock disponible en memoria, o -1 si el producto no existe.
+     */
+    public int disponible(Integer productoId) {
+        StockRayado stock = stock(productoId);
+        return stock == null ? -1 : stock.disponible();
+    }
+
+    /**
+     * Escribe en la base de datos lo vendido desde la última escritura (un lote para
+     * todos los productos) y luego incorpora los cambios de stock hechos por fuera.
+     */
+    @Scheduled(fixedDelayString = "${inventario.rayado.flush-ms:1000}")
+    public synchronized void escribirPendientes() {
+        Map<Integer, Long> lote = new LinkedHashMap<>();
+        pendientes.forEach((id, vendidos) -> {
+            long n = vendidos.getAndSet(0);
+            if (n != 0) lote.put(id, n);
+        });
+
+        if (!lote.isEmpty()) {
+            try {
+                jdbcTemplate.batchUpdate(SQL_ESCRIBIR, lote.entrySet().stream()
+                        .map(e -> new Object[]{e.getValue(), e.getKey()})
+                        .toList());
+                lote.forEach((id, n) -> esperadoEnBase.computeIfPresent(id, (k, esperado) -> esperado - n));
+            } catch (DataAccessException e) {
+                // se reintenta en la próxima pasada
+                lote.forEach((id, n) -> pendientes.get(id).addAndGet(n));
+                return;
+            }
+        }
+        reconciliar();
+    }
+
+    /**
+     * Compara el stock de la base de datos con el esperado y lleva la diferencia al
+     * stock en memoria. Las ventas de esta instancia no tocan la base de datos hasta
+     * el flush, así que cualquier diferencia vino de otro lado.
+     */
+    private void reconciliar() {
+        esperadoEnBase.forEach((id, esperado) -> {
+            Integer actual;
+            try {
+                actual = jdbcTemplate.queryForObject(SQL_LEER, Integer.class, id);
+            } catch (DataAccessException e) {
+                return; // se vuelve a intentar en la próxima pasada
+            }
+            long diferencia = (actual == null ? 0 : actual) - esperado;
+            if (diferencia == 0) return;
+            StockRayado stock = stocks.get(id);
+            if (diferencia > 0) stock.devolver((int) diferencia);
+            else stock.retirar((int) -diferencia);
+            esperadoEnBase.put(id, (long) (actual == null ? 0 : actual));
+        });
+    }
+
+    /**
+     * Stock en memoria y unidades pendientes de escribir por producto.
+     */
+    public Map<String, Long> estadisticas() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stocks.forEach((id, stock) -> {
+            stats.put("inventario.rayado." + id + ".disponible", (long) stock.disponible());
+            AtomicLong pendiente = pendientes.get(id);
+            stats.put("inventario.rayado." + id + ".pendientes", pendiente == null ? 0L : pendiente.get());
+        });
+        return stats;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        escribirPendientes();
+    }
+
+    private StockRayado stock(Integer productoId) {
+        return stocks.computeIfAbsent(productoId, id -> {
+            try {
+                Integer actual = jdbcTemplate.queryForObject(SQL_LEER, Integer.class, id);
+                int inicial = actual == null ? 0 : actual;
+                esperadoEnBase.put(id, (long) inicial);
+                return new StockRayado(inicial, franjas);
+            } catch (EmptyResultDataAccessException e) {
+                return null; // producto inexistente: no se guarda
+            }
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package com.tienda.app.service;
+
+import com.tienda.app.utility.ClienteKv;
+import com.tienda.app.utility.ClienteKvLocal;
+import com.tienda.app.utility.LimitadorIntentos;
+import com.tienda.app.utility.LimitadorKv;
+import com.tienda.app.utility.LimitadorTokenBucket;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Limita los intentos de login por email y por IP del cliente, antes de cualquier
+ * consulta a la base de datos o cálculo de hash. Así repetir contraseñas erróneas
+ * (o un ataque de credenciales) no puede convertir el login en un quemador de CPU.
+ *
+ * - Por email cuentan solo los intentos fallidos: un ingreso correcto reinicia
+ *   el límite del email ({@link #ingresoExitoso(String)}).
+ * - Por IP cuentan todos (cada uno cuesta un hash). La IP es la del cliente real
+ *   solo si la aplicación conoce a sus proxies: detrás de un balanceador hay que
+ *   activar server.forward-headers-strategy y declarar sus direcciones en
+ *   server.tomcat.remoteip.internal-proxies; si no, todos los clientes comparten
+ *   la IP del balanceador.
+ *
+ * Almacén (login.limite.almacen):
+ * - memoria (por defecto): {@link LimitadorTokenBucket} por instancia.
+ * - kv: {@link LimitadorKv} sobre el {@link ClienteKv} compartido, para que el
+ *   límite valga entre varias instancias. La ventana fija dura lo que tardaría
+ *   el token bucket en recargar la capacidad completa (capacidad / por-minuto
+ *   minutos): se admite la misma ráfaga y, a la larga, el mismo ritmo por minuto.
+ */
+@Service
+public class LimiteIngresoService {
+
+    private final LimitadorIntentos porEmail;
+    private final LimitadorIntentos porIp;
+    private final long reintentoSegundos;
+
+    public LimiteIngresoService(@Value("${login.limite.almacen:memoria}") String almacen,
+                                @Value("${login.limite.email.capacidad:5}") int capacidadEmail,
+                                @Value("${login.limite.email.por-minuto:5}") int porMinutoEmail,
+                                @Value("${login.limite.ip.capacidad:20}") int capacidadIp,
+                                @Value("${login.limite.ip.por-minuto:30}") int porMinutoIp,
+                                @Value("${login.limite.franjas:64}") int franjas,
+                                @Value("${login.limite.max-claves:100000}") int maxClaves,
+                                ObjectProvider<ClienteKv> clienteKv) {
+        this.reintentoSegundos = Math.max(1, 60 / Math.max(1, Math.min(porMinutoEmail, porMinutoIp)));
+        switch (almacen) {
+            case "memoria" -> {
+                this.porEmail = new LimitadorTokenBucket("login.limite.email", capacidadEmail, porMinutoEmail, franjas, maxClaves);
+                this.porIp = new LimitadorTokenBucket("login.limite.ip", capacidadIp, porMinutoIp, franjas, maxClaves);
+            }
+            case "kv" -> {
+                ClienteKv kv = clienteKv.getIfAvailable(ClienteKvLocal::new);
+                this.porEmail = new LimitadorKv("login.limite.email", kv, capacidadEmail,
+                        ventanaMs(capacidadEmail, porMinutoEmail));
+                this.porIp = new LimitadorKv("login.limite.ip", kv, capacidadIp,
+                        ventanaMs(capacidadIp, porMinutoIp));
+            }
+            default -> throw new IllegalArgumentException("login.limite.almacen desconocido: " + almacen);
+        }
+    }
+
+    /**
+     * Ventana en la que se recargan {@code capacidad} intentos al ritmo dado.
+     */
+    static long ventanaMs(int capacidad, int porMinuto) {
+        return Math.max(1_000, 60_000L * capacidad / Math.max(1, porMinuto));
+    }
+
+    /**
+     * Consume un intento para la IP y otro para el email.
+     *
+     * @param email email ingresado (se normaliza a minúsculas).
+     * @param ip dirección del cliente.
+     * @return true si el intento puede seguir; false si se superó algún límite.
+     */
+    public boolean permitir(String email, String ip) {
+        if (!porIp.permitir(ip)) return false;
+        return email == null || porEmail.permitir(normalizar(email));
+    }
+
+    private static String normalizar(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Reinicia el límite del email tras un ingreso correcto: quien conoce la
+     * contraseña no debe quedar bloqueado por sus intentos anteriores.
+     *
+     * @param email email con el que se ingresó.
+     */
+    public void ingresoExitoso(String email) {
+        if (email != null) porEmail.reiniciar(normalizar(email));
+    }
+
+    /**
+     * Segundos sugeridos para el encabezado Retry-After de un intento rechazado.
+     */
+    public long reintentoSegundos() {
+        return reintentoSegundos;
+    }
+
+    /**
+     * Quita de memoria las claves que ya recuperaron todos sus intentos.
+     */
+    @Scheduled(fixedDelayString = "${login.limite.purga-ms:60000}")
+    public void purgar() {
+        if (porEmail instanceof LimitadorTokenBucket bucket) bucket.purgar();
+        if (porIp instanceof LimitadorTokenBucket bucket) bucket.purgar();
+    }
+
+    public Map<String, Long> estadisticas() {
+        Map<String, Long> stats = new LinkedHashMap<>(porEmail.estadisticas());
+        stats.putAll(porIp.estadisticas());
+        return stats;
+    }
+}
@@ -0,0 +1,108 @@
+package com.tienda.app.service;
+
+import com.tienda.app.model.PerfilUsuario;
+import com.tienda.app.model.UserAddress;
+import com.tienda.app.model.UserInformation;
+import com.tienda.app.utility.CacheDosNiveles;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Caché por usuario del perfil (información personal, dirección y tarjetas
+ * enmascaradas) que muestran la página personal y el checkout.
+ *
+ * Con la caché caliente esas páginas no consultan la base de datos; un fallo
+ * cuesta las tres consultas de siempre. Cada cambio del perfil hecho por la
+ * aplicación llama a {@link #invalidar(Integer)}; el TTL (perfiles.cache.ttl-segundos)
+ * acota lo que puede tardar en verse un cambio hecho por otra instancia.
+ *
+ * El perfil se arma con copias desligadas de JPA: se comparte entre peticiones
+ * y nunca debe quedar asociado al contexto de persistencia de una de ellas.
+ */
+@Service
+public class PerfilService {
+
+    private final UserInformationService userInformationService;
+    private final UserAddressService userAddressService;
+    private final BillingMethodService billingMethodService;
+
+    private final ExecutorService executorCache = Executors.newVirtualThreadPerTaskExecutor();
+    private final CacheDosNiveles<Integer, PerfilUsuario> perfiles;
+
+    public PerfilService(UserInformationService userInformationService,
+                         UserAddressService userAddressService,
+                         BillingMethodService billingMethodService,
+                         @Value("${perfiles.cache.max-entradas:10000}") int maxEntradas,
+                         @Value("${perfiles.cache.ttl-segundos:600}") long ttlSegundos) {
+        this.userInformationService = userInformationService;
+        this.userAddressService = userAddressService;
+        this.billingMethodService = billingMethodService;
+        this.perfiles = new CacheDosNiveles<>("perfiles", maxEntradas, Duration.ofSeconds(ttlSegundos), executorCache);
+    }
+
+    /**
+     * @param userId id del usuario.
+     * @return su perfil (desde la caché si está).
+     */
+    public PerfilUsuario obtener(Integer userId) {
+        return perfiles.obtener(userId, this::cargar);
+    }
+
+    /**
+     * @return true si el usuario ya creó su información personal.
+     */
+    public boolean tienePerfil(Integer userId) {
+        return obtener(userId).informacion() != null;
+    }
+
+    /**
+     * Descarta el perfil guardado; la próxima consulta lo vuelve a cargar.
+     */
+    public void invalidar(Integer userId) {
+        perfiles.invalidar(userId);
+    }
+
+    public Map<String, Long> estadisticas() {
+        return perfiles.estadisticas();
+    }
+
+    private PerfilUsuario cargar(Integer userId) {
+        return new PerfilUsuario(copiar(userInformationService.getUserInformationById(userId)),
+                copiar(userAddressService.getUserAddressByUserId(userId)),
+                List.copyOf(billingMethodService.findAllByUserId(userId)));
+    }
+
+    private static UserInformation copiar(UserInformation informacion) {
+        if (informacion == null) return null;
+        UserInformation copia = new UserInformation();
+        copia.setId(informacion.getId());
+        copia.setCedula(informacion.getCedula());
+        copia.setFullName(informacion.getFullName());
+        return copia;
+    }
+
+    private static UserAddress copiar(UserAddress direccion) {
+        if (direccion == null) return null;
+        UserAddress copia = new UserAddress();
+        copia.setId(direccion.getId());
+        copia.setLabel(direccion.getLabel());
+        copia.setLine1(direccion.getLine1());
+        copia.setCity(direccion.getCity());
+        copia.setState(direccion.getState());
+        copia.setPostalCode(direccion.getPostalCode());
+        copia.setPhone(direccion.getPhone());
+        return copia;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executorCache.shutdownNow();
+    }
+}
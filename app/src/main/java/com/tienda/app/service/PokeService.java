@@ -1,55 +1,302 @@
 package com.tienda.app.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tienda.app.model.Pokemon;
-import org.springframework.http.ResponseEntity;
+import com.tienda.app.utility.CacheDosNiveles;
+import com.tienda.app.utility.CircuitBreaker;
+import com.tienda.app.utility.PokeApiDecoder;
+import com.tienda.app.utility.ServicioNoDisponibleException;
+import com.tienda.app.utility.SingleFlight;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
+/**
+ * Servicio que consulta la PokeAPI para armar el catálogo de Pokémon.
+ *
+ * La lista se obtiene con una sola llamada y luego los detalles de cada Pokémon
+ * se descargan en paralelo (hilos virtuales), limitados por:
+ * - Un máximo de peticiones simultáneas (pokeapi.concurrencia-maxima).
+ * - Un tiempo máximo por petición (timeouts del cliente HTTP compartido, http.cliente.*).
+ * - Un tiempo máximo total para toda la carga (pokeapi.timeout-total-ms).
+ *
+ * Si algún detalle no llega a tiempo o falla, se omite y se devuelven los demás
+ * (resultado parcial), en el mismo orden que entrega la API. Un resultado parcial
+ * no se guarda en la caché de listas: la próxima consulta vuelve a intentar la
+ * lista completa (los detalles que sí llegaron quedan en su propia caché), y una
+ * recarga en segundo plano parcial conserva la lista completa anterior.
+ *
+ * Los resultados se guardan en dos cachés ({@link CacheDosNiveles}): una por id de
+ * Pokémon y otra por límite de la lista. Una vez caliente, la página principal se
+ * sirve desde la caché y las entradas vencidas se recargan en segundo plano.
+ *
+ * Las respuestas se leen en streaming con {@link PokeApiDecoder}, que extrae solo
+ * los campos usados por {@link Pokemon} sin construir el árbol completo del JSON.
+ *
+ * Protección ante una PokeAPI lenta o caída:
+ * - Un {@link CircuitBreaker} corta las llamadas tras varios fallos seguidos. Solo
+ *   cuentan como fallo los errores 5xx, el 429, los timeouts y los errores de E/S;
+ *   un 4xx (por ejemplo, un id que no existe) es una respuesta válida de la API.
+ * - Un bulkhead (semáforo) limita cuántos hilos de petición pueden estar esperando
+ *   a la PokeAPI a la vez; el resto se rechaza de inmediato.
+ * Así los hilos de Tomcat quedan libres para el carrito y el checkout.
+ * En ambos casos (y si la PokeAPI falla) se lanza {@link ServicioNoDisponibleException},
+ * para que quien llama distinga "no disponible" de "no existe" (null o lista vacía).
+ *
+ * Las descargas concurrentes de un mismo límite o de un mismo id se agrupan con
+ * {@link SingleFlight}: solo una llega a la PokeAPI y las demás esperan su resultado,
+ * como mucho pokeapi.timeout-total-ms.
+ */
 @Service
 public class PokeService {
 
-    private static final String API_URL = "https://pokeapi.co/api/v2/pokemon?limit=";
+    private final String apiUrl;
+    private final long timeoutTotalMs;
+    private final RestTemplate restTemplate;
+    private final PokeApiDecoder decoder;
+    private final Semaphore permisos;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CacheDosNiveles<Integer, Pokemon> detalles;
+    private final CacheDosNiveles<String, List<Pokemon>> listas;
+    private final SingleFlight<String, List<Pokemon>> vuelosListas;
+    private final SingleFlight<Integer, Pokemon> vuelosDetalles;
+    private final CircuitBreaker circuito;
+    private final Semaphore bulkhead;
+    private final long esperaBulkheadMs;
+    private final AtomicLong rechazosBulkhead = new AtomicLong();
+
+    public PokeService(@Value("${pokeapi.url:https://pokeapi.co/api/v2/pokemon}") String apiUrl,
+                       @Value("${pokeapi.concurrencia-maxima:16}") int concurrenciaMaxima,
+                       @Value("${pokeapi.timeout-total-ms:4000}") long timeoutTotalMs,
+                       @Value("${pokeapi.cache.max-entradas:2000}") int maxEntradas,
+                       @Value("${pokeapi.cache.ttl-segundos:3600}") long ttlSegundos,
+                       @Value("${pokeapi.cache.directorio:}") String directorio,
+                       @Value("${pokeapi.circuito.fallos-para-abrir:5}") int fallosParaAbrir,
+                       @Value("${pokeapi.circuito.abierto-ms:30000}") long abiertoMs,
+                       @Value("${pokeapi.bulkhead.max-llamadas:4}") int maxLlamadas,
+                       @Value("${pokeapi.bulkhead.espera-ms:50}") long esperaBulkheadMs,
+                       RestTemplate restTemplate,
+                       ObjectMapper mapper) {
+        this.apiUrl = apiUrl;
+        this.timeoutTotalMs = timeoutTotalMs;
+        this.permisos = new Semaphore(concurrenciaMaxima);
+        this.restTemplate = restTemplate;
+        this.decoder = new PokeApiDecoder(mapper.getFactory());
+        this.circuito = new CircuitBreaker("pokeapi.circuito", fallosParaAbrir, Duration.ofMillis(abiertoMs));
+        this.bulkhead = new Semaphore(maxLlamadas);
+        this.esperaBulkheadMs = esperaBulkheadMs;
+        // quien se une a una carga en curso no espera más que el plazo de la propia carga
+        Duration esperaVuelos = Duration.ofMillis(timeoutTotalMs);
+        this.vuelosListas = new SingleFlight<>("pokeapi.vuelos.listas", esperaVuelos);
+        this.vuelosDetalles = new SingleFlight<>("pokeapi.vuelos.pokemon", esperaVuelos);
+
+        Path dir = directorio.isBlank() ? null : Path.of(directorio);
+        Duration ttl = Duration.ofSeconds(ttlSegundos);
+        this.detalles = new CacheDosNiveles<>("pokemon", maxEntradas, ttl, dir, mapper,
+                mapper.constructType(Pokemon.class), executor);
+        this.listas = new CacheDosNiveles<>("listas", 32, ttl, dir, mapper,
+                mapper.getTypeFactory().constructCollectionType(List.class, Pokemon.class), executor);
+    }
 
     public List<Pokemon> obtenerPokemones(String Limit) {
-        RestTemplate restTemplate = new RestTemplate();
+        try {
+            return listas.obtener(Limit, l -> vuelosListas.ejecutar(l, () -> enBulkhead(() -> descargarPokemones(l))));
+        } catch (ListaParcialException e) {
+            return e.pokemons; // se muestra, pero no se guardó en la caché
+        } catch (ServicioNoDisponibleException e) {
+            throw e; // circuito abierto o cupo agotado: no se hace esperar al usuario
+        } catch (RuntimeException e) {
+            throw new ServicioNoDisponibleException("No se pudo obtener la lista de la PokeAPI", e);
+        }
+    }
 
-        Map<String, Object> response = restTemplate.getForObject(API_URL+Limit, Map.class);
-        List<Map<String, String>> results = (List<Map<String, String>>) response.get("results");
+    /**
+     * Descarga la lista sin pasar por la caché de listas (los detalles sí se toman
+     * de su caché) y la deja guardada para las siguientes consultas.
+     */
+    public List<Pokemon> recargarPokemones(String Limit) {
+        List<Pokemon> pokemons;
+        try {
+            pokemons = vuelosListas.ejecutar(Limit, () -> descargarPokemones(Limit));
+        } catch (ListaParcialException e) {
+            return e.pokemons;
+        }
+        listas.guardar(Limit, pokemons);
+        return pokemons;
+    }
 
-        List<Pokemon> pokemons = new ArrayList<>();
+    /**
+     * @return el Pokémon, o null si el id no es un número o la PokeAPI no lo conoce.
+     * @throws ServicioNoDisponibleException si la PokeAPI no responde, el circuito está abierto o no hay cupo.
+     */
+    public Pokemon obtenerPokemon(String id) {
+        Integer numero;
+        try {
+            numero = Integer.valueOf(id.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        try {
+            return detalles.obtener(numero,
+                    i -> vuelosDetalles.ejecutar(i, () -> enBulkhead(() -> descargarDetalle(i))));
+        } catch (HttpClientErrorException.NotFound e) {
+            return null;
+        } catch (ServicioNoDisponibleException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new ServicioNoDisponibleException("No se pudo obtener el Pokémon " + numero, e);
+        }
+    }
 
-        for (Map<String, String> result : results) {
-            String name = result.get("name");
-            String url = result.get("url");
+    /**
+     * Contadores de las cachés de Pokémon, del circuito y del bulkhead.
+     */
+    public Map<String, Long> estadisticas() {
+        Map<String, Long> stats = new LinkedHashMap<>(detalles.estadisticas());
+        stats.putAll(listas.estadisticas());
+        stats.putAll(vuelosListas.estadisticas());
+        stats.putAll(vuelosDetalles.estadisticas());
+        stats.putAll(circuito.estadisticas());
+        stats.put("pokeapi.bulkhead.disponibles", (long) bulkhead.availablePermits());
+        stats.put("pokeapi.bulkhead.rechazos", rechazosBulkhead.get());
+        return stats;
+    }
 
-            // obtenemos detalles individuales del Pokémon
-            Map<String, Object> detalle = restTemplate.getForObject(url, Map.class);
+    /**
+     * @throws ListaParcialException si faltó algún detalle (lleva los que sí llegaron).
+     */
+    private List<Pokemon> descargarPokemones(String Limit) {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutTotalMs);
 
-            Pokemon p = new Pokemon();
-            p.setName(name);
-            p.setId((Integer) detalle.get("id"));
-            p.setHeight((Integer) detalle.get("height"));
-            p.setWeight((Integer) detalle.get("weight"));
+        List<Integer> ids = llamar(() -> restTemplate.execute(apiUrl + "?limit=" + Limit, HttpMethod.GET, null,
+                respuesta -> decoder.leerIdsLista(respuesta.getBody())));
 
-            Map<String, Object> sprites = (Map<String, Object>) detalle.get("sprites");
-            p.setImage((String) sprites.get("front_default"));
+        // se lanzan todas las descargas de detalle; el semáforo limita cuántas corren a la vez
+        List<Future<Pokemon>> pendientes = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            pendientes.add(executor.submit(() -> detalles.obtener(id,
+                    i -> vuelosDetalles.ejecutar(i, () -> descargarDetalle(i)))));
+        }
 
-            pokemons.add(p);
+        List<Pokemon> pokemons = new ArrayList<>(ids.size());
+        for (Future<Pokemon> pendiente : pendientes) {
+            try {
+                long restante = Math.max(0, limite - System.nanoTime());
+                pokemons.add(pendiente.get(restante, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException | ExecutionException e) {
+                // detalle lento o con error: se omite y se sigue con el resto
+                pendiente.cancel(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pendientes.forEach(p -> p.cancel(true));
+                break;
+            }
         }
 
+        if (pokemons.size() < ids.size()) throw new ListaParcialException(pokemons);
         return pokemons;
     }
-    public Pokemon obtenerPokemon(String id) {
-        RestTemplate restTemplate = new RestTemplate();
-        Map<String, Object> response = restTemplate.getForObject(API_URL+id, Map.class);
-        Pokemon p = new Pokemon();
-        p.setId((Integer) response.get("id"));
-        p.setHeight((Integer) response.get("height"));
-        p.setWeight((Integer) response.get("weight"));
-        return p;
-    }
-}
\ No newline at end of file
+
+    /**
+     * Descarga el detalle de un Pokémon respetando el límite de concurrencia.
+     */
+    private Pokemon descargarDetalle(Integer id) {
+        try {
+            permisos.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Descarga interrumpida del Pokémon " + id, e);
+        }
+        try {
+            // obtenemos detalles individuales del Pokémon
+            return llamar(() -> restTemplate.execute(apiUrl + "/" + id, HttpMethod.GET, null,
+                    respuesta -> decoder.leerDetalle(respuesta.getBody())));
+        } finally {
+            permisos.release();
+        }
+    }
+
+    /**
+     * Ejecuta una llamada HTTP a la PokeAPI pasando por el circuit breaker.
+     * Un 4xx cuenta como éxito (la API respondió); un 429 indica sobrecarga y
+     * cuenta como fallo, igual que los 5xx, timeouts y errores de E/S.
+     */
+    private <T> T llamar(Supplier<T> llamada) {
+        circuito.verificar();
+        try {
+            T resultado = llamada.get();
+            circuito.registrarExito();
+            return resultado;
+        } catch (HttpClientErrorException e) {
+            if (e instanceof HttpClientErrorException.TooManyRequests) circuito.registrarFallo();
+            else circuito.registrarExito();
+            throw e;
+        } catch (RuntimeException e) {
+            circuito.registrarFallo();
+            throw e;
+        }
+    }
+
+    /**
+     * Ejecuta una carga síncrona dentro del bulkhead: si no hay cupo en
+     * pokeapi.bulkhead.espera-ms, se rechaza en lugar de bloquear el hilo de la petición.
+     */
+    private <T> T enBulkhead(Supplier<T> carga) {
+        boolean conCupo;
+        try {
+            conCupo = bulkhead.tryAcquire(esperaBulkheadMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            conCupo = false;
+        }
+        if (!conCupo) {
+            rechazosBulkhead.incrementAndGet();
+            throw new ServicioNoDisponibleException("Cupo de llamadas a la PokeAPI agotado");
+        }
+        try {
+            return carga.get();
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Resultado parcial de una descarga de lista. Se lanza en lugar de devolverlo
+     * para que ni {@link CacheDosNiveles} ni su recarga en segundo plano lo guarden;
+     * quienes esperan la misma carga en {@link SingleFlight} reciben la misma lista.
+     */
+    private static final class ListaParcialException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final transient List<Pokemon> pokemons;
+
+        ListaParcialException(List<Pokemon> pokemons) {
+            super("Lista parcial de " + pokemons.size() + " Pokémon", null, false, false);
+            this.pokemons = pokemons;
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,176 @@
+package com.tienda.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tienda.app.model.Pokemon;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Servicio que mantiene en memoria una "foto" (snapshot) del Pokédex para que la
+ * página principal nunca dependa de llamadas en vivo a la PokeAPI.
+ *
+ * Funcionamiento:
+ * - Al crearse el bean (antes de que arranquen las tareas programadas) se carga el
+ *   último snapshot guardado en disco, de modo que un arranque en frío tiene datos
+ *   al instante.
+ * - Una tarea programada reconstruye el snapshot con los primeros N Pokémon y lo
+ *   vuelve a guardar en disco. Un resultado parcial nunca reemplaza a uno más completo.
+ *   La reconstrucción (cientos de llamadas a la PokeAPI) corre en un hilo propio: la
+ *   tarea programada solo la lanza, así no retiene el planificador compartido con
+ *   los flush del carrito y del inventario, el refresco de tarjetas y la purga del
+ *   límite de ingresos.
+ * - Mientras el snapshot no llega al mínimo configurado se sirve una página
+ *   degradada y GET /salud/listo responde 503 (ver
+ *   {@link com.tienda.app.controller.SaludController}), así el balanceador no
+ *   envía tráfico a esta instancia.
+ */
+@Service
+public class PokedexSnapshotService {
+
+    private final PokeService pokeService;
+    private final ObjectMapper mapper;
+    private final int tamano;
+    private final int minimo;
+    private final Path archivo;
+
+    /** Snapshot actual (lista inmutable, se reemplaza completa en cada recarga). */
+    private volatile List<Pokemon> snapshot = List.of();
+
+    /** Hilo de las reconstrucciones, fuera del planificador de Spring. */
+    private final ExecutorService executorRecarga =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("pokedex-recarga").factory());
+    /** Evita encolar una reconstrucción mientras otra sigue en curso. */
+    private final AtomicBoolean recargando = new AtomicBoolean();
+
+    public PokedexSnapshotService(PokeService pokeService, ObjectMapper mapper,
+                                  @Value("${pokedex.snapshot.tamano:200}") int tamano,
+                                  @Value("${pokedex.snapshot.minimo:55}") int minimo,
+                                  @Value("${pokedex.snapshot.archivo:}") String archivo) {
+        this.pokeService = pokeService;
+        this.mapper = mapper;
+        this.tamano = tamano;
+        this.minimo = minimo;
+        this.archivo = archivo.isBlank() ? null : Path.of(archivo);
+    }
+
+    /**
+     * Devuelve los primeros {@code limite} Pokémon del snapshot.
+     * Si se piden más de los que tiene el snapshot, se consultan al {@link PokeService}.
+     *
+     * @param limite cantidad de Pokémon a mostrar.
+     * @return lista de Pokémon (vacía si todavía no hay snapshot).
+     * @throws com.tienda.app.utility.ServicioNoDisponibleException si hay que ir a la PokeAPI y no responde.
+     */
+    public List<Pokemon> obtener(int limite) {
+        if (limite > tamano) {
+            return pokeService.obtenerPokemones(String.valueOf(limite));
+        }
+        return delSnapshot(limite);
+    }
+
+    /**
+     * Los primeros {@code limite} Pokémon del snapshot, sin consultar nunca la PokeAPI.
+     */
+    public List<Pokemon> delSnapshot(int limite) {
+        List<Pokemon> actual = snapshot;
+        return actual.subList(0, Math.min(limite, actual.size()));
+    }
+
+    /**
+     * Indica si el snapshot todavía no alcanza el mínimo (página degradada).
+     */
+    public boolean isDegradado() {
+        return snapshot.size() < minimo;
+    }
+
+    /**
+     * Carga el snapshot guardado en disco. Corre al crear el bean, antes de que el
+     * planificador lance la primera {@link #recargar()}.
+     */
+    @PostConstruct
+    public void cargarDesdeDisco() {
+        List<Pokemon> guardado = leerArchivo();
+        if (guardado != null && !guardado.isEmpty()) {
+            snapshot = List.copyOf(guardado);
+        }
+    }
+
+    /**
+     * Lanza {@link #recargar()} en su propio hilo y vuelve de inmediato. Se ejecuta
+     * al arrancar y luego cada pokedex.snapshot.refresco-ms milisegundos; si la
+     * reconstrucción anterior sigue en curso, no hace nada.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${pokedex.snapshot.refresco-ms:1800000}")
+    public void programarRecarga() {
+        if (!recargando.compareAndSet(false, true)) return;
+        try {
+            executorRecarga.execute(() -> {
+                try {
+                    recargar();
+                } finally {
+                    recargando.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            recargando.set(false); // executor cerrado al apagar
+        }
+    }
+
+    /**
+     * Reconstruye el snapshot (bloquea mientras se consulta la PokeAPI).
+     */
+    public void recargar() {
+        List<Pokemon> nuevo;
+        try {
+            nuevo = pokeService.recargarPokemones(String.valueOf(tamano));
+        } catch (RuntimeException e) {
+            return; // PokeAPI caída: se conserva el snapshot actual
+        }
+        // un resultado parcial solo reemplaza al actual si no tiene menos Pokémon
+        List<Pokemon> actual = snapshot;
+        if (!nuevo.isEmpty() && nuevo.size() >= Math.min(tamano, actual.size())) {
+            snapshot = List.copyOf(nuevo);
+            escribirArchivo(nuevo);
+        }
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executorRecarga.shutdownNow();
+    }
+
+    private List<Pokemon> leerArchivo() {
+        if (archivo == null || !Files.isRegularFile(archivo)) return null;
+        try {
+            return mapper.readValue(archivo.toFile(),
+                    mapper.getTypeFactory().constructCollectionType(List.class, Pokemon.class));
+        } catch (IOException e) {
+            return null; // archivo dañado: se espera a la primera recarga
+        }
+    }
+
+    private void escribirArchivo(List<Pokemon> pokemons) {
+        if (archivo == null) return;
+        try {
+            Path dir = archivo.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path temporal = Files.createTempFile(dir, "pokedex", ".tmp");
+            mapper.writeValue(temporal.toFile(), pokemons);
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // sin archivo el próximo arranque solo tarda más en tener datos
+        }
+    }
+}
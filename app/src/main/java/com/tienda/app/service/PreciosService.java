@@ -0,0 +1,78 @@
+package com.tienda.app.service;
+
+import com.tienda.app.model.ArticuloTarjeta;
+import com.tienda.app.model.Carrito;
+import com.tienda.app.model.CarritoItem;
+import com.tienda.app.model.PrecioVigente;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Fuente única (del lado del servidor) del nombre y precio de los productos
+ * que se agregan al carrito: el cliente nunca envía el precio.
+ *
+ * No guarda una tabla propia: resuelve cada producto por id a través de la caché
+ * de tarjetas de {@link ArticuloService#buscarTarjeta(Integer)}, la misma que da
+ * el stock. Un producto nuevo se encuentra en su primera consulta, y un cambio
+ * de precio llega con el refresco incremental de esa caché (solo filas cambiadas).
+ *
+ * La versión de un precio es la fecha de modificación de la fila del producto
+ * (products.updated_at). Cada línea del carrito guarda la versión con la que se
+ * agregó; al finalizar la compra, si coincide con la de la tarjeta actual no hay
+ * nada que revisar. Al ser un dato de la base de datos, las versiones siguen
+ * valiendo tras un reinicio y entre varias instancias.
+ */
+@Service
+public class PreciosService {
+
+    private final ArticuloService articuloService;
+
+    public PreciosService(ArticuloService articuloService) {
+        this.articuloService = articuloService;
+    }
+
+    /**
+     * Nombre y precio vigentes de un producto.
+     *
+     * @return Optional vacío si el producto no existe o no está activo.
+     */
+    public Optional<PrecioVigente> resolver(Integer productoId) {
+        return articuloService.buscarTarjeta(productoId).map(PreciosService::precio);
+    }
+
+    /**
+     * Pone al día los precios del carrito antes de cobrar.
+     *
+     * Las líneas cuya versión coincide con la del producto se saltan. Las demás se
+     * comparan con la tarjeta: si el precio no cambió solo se actualiza su versión;
+     * si cambió se reemplaza el precio, y si el producto ya no está a la venta se elimina.
+     *
+     * @param carrito carrito a revisar (se modifica).
+     * @return líneas cuyo precio cambió o que se eliminaron (vacía si todo sigue igual).
+     */
+    public List<CarritoItem> actualizarCarrito(Carrito carrito) {
+        List<CarritoItem> cambiadas = new ArrayList<>();
+        for (CarritoItem item : carrito.lineas()) {
+            ArticuloTarjeta tarjeta = articuloService.buscarTarjeta(item.getProductoId()).orElse(null);
+            if (tarjeta == null) {
+                carrito.eliminar(item.getProductoId());
+                cambiadas.add(item);
+                continue;
+            }
+            if (item.getVersionPrecio() == tarjeta.version()) continue;
+
+            PrecioVigente vigente = precio(tarjeta);
+            carrito.actualizarPrecio(vigente);
+            if (vigente.precioCentavos() != item.getPrecioCentavos()) cambiadas.add(item);
+        }
+        return cambiadas;
+    }
+
+    private static PrecioVigente precio(ArticuloTarjeta tarjeta) {
+        return new PrecioVigente(tarjeta.id(), tarjeta.name(), CarritoItem.aCentavos(tarjeta.price()),
+                tarjeta.version());
+    }
+}
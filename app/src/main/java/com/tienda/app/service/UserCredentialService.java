@@ -3,7 +3,6 @@ package com.tienda.app.service;
 import com.tienda.app.model.UserCredentialModel;
 import com.tienda.app.repository.UserCredentialRepository;
 import com.tienda.app.repository.UserInformationRepository;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -23,18 +22,22 @@ public class UserCredentialService {
     private final UserInformationService userInformationService;
     private final UserAddressService userAddressService;
     private final BillingMethodService billingMethodService;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final ContrasenaService contrasenaService;
+    private final EmailsRegistradosService emailsRegistrados;
+    private final PerfilService perfilService;
 
     /**
      * Inyección de dependencias mediante constructor.
      * @param userCredentialRepository repositorio JPA de credenciales de usuario.
      */
-    public UserCredentialService(UserCredentialRepository userCredentialRepository, UserInformationService userInformationService, UserAddressService userAddressService, BillingMethodService billingMethodService, BCryptPasswordEncoder passwordEncoder) {
+    public UserCredentialService(UserCredentialRepository userCredentialRepository, UserInformationService userInformationService, UserAddressService userAddressService, BillingMethodService billingMethodService, ContrasenaService contrasenaService, EmailsRegistradosService emailsRegistrados, PerfilService perfilService) {
         this.userCredentialRepository = userCredentialRepository;
         this.userInformationService = userInformationService;
         this.userAddressService = userAddressService;
         this.billingMethodService = billingMethodService;
-        this.passwordEncoder = passwordEncoder;
+        this.contrasenaService = contrasenaService;
+        this.emailsRegistrados = emailsRegistrados;
+        this.perfilService = perfilService;
     }
 
     /**
@@ -51,18 +54,22 @@ public class UserCredentialService {
         userCredential.setEmail(email);
         userCredential.setPasswordHash(passwordHash);
 
-        return userCredentialRepository.save(userCredential);
+        UserCredentialModel guardado = userCredentialRepository.save(userCredential);
+        emailsRegistrados.registrar(email);
+        return guardado;
     }
 
     /**
      * Busca un usuario por su email.
      *
      * Se utiliza principalmente para verificar que no se registren emails duplicados.
+     * Los emails que el filtro de Bloom descarta no llegan a consultar la base de datos.
      *
      * @param email correo electrónico a buscar.
      * @return el usuario si existe, null en caso contrario.
      */
     public UserCredentialModel buscarPorEmail(String email) {
+        if (!emailsRegistrados.podriaExistir(email)) return null;
         return userCredentialRepository.findByEmail(email).orElse(null);
     }
 
@@ -81,11 +88,17 @@ public class UserCredentialService {
      * @param email correo electrónico ingresado.
      * @param password_hash contraseña en formato hash.
      * @return el usuario autenticado si existe, null si las credenciales son incorrectas.
+     * @throws com.tienda.app.utility.ServicioNoDisponibleException si el pool de hash está saturado.
      */
     public UserCredentialModel ValidarCredenciales(String email, String password_hash) {
+        if (!emailsRegistrados.podriaExistir(email)) return null; // email no registrado, sin consultar
         UserCredentialModel user = userCredentialRepository.findByEmail(email).orElse(null);
         if (user == null) return null;
-        if (passwordEncoder.matches(password_hash, user.getPasswordHash())) {
+        String hash = user.getPasswordHash();
+        if (contrasenaService.verificar(password_hash, hash)) {
+            // hash con otro algoritmo o costo: se recalcula en segundo plano
+            contrasenaService.rehacerSiHaceFalta(password_hash, hash,
+                    nuevo -> userCredentialRepository.reemplazarHash(user.getId(), hash, nuevo));
             return user; // login correcto
         }
         return null; // contraseña incorrecta
@@ -96,6 +109,7 @@ public class UserCredentialService {
         userAddressService.eliminarUserAddressByUser(id);
         billingMethodService.elimiarBillingMethodByUser(id);
         userCredentialRepository.deleteById(id);
+        perfilService.invalidar(id);
     }
 
     public void actualizarRol(int id, String rol) {
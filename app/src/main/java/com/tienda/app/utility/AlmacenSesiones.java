@@ -0,0 +1,29 @@
+package com.tienda.app.utility;
+
+import java.time.Duration;
+
+/**
+ * Almacén externo de sesiones HTTP (ver {@link SesionExternaFilter}).
+ *
+ * Guarda cada sesión como un bloque de bytes ya serializado por
+ * {@link SerializadorSesion}, de modo que cualquier instancia de la aplicación
+ * puede atender a cualquier usuario sin sesiones "pegajosas".
+ *
+ * Implementaciones:
+ * - {@link AlmacenSesionesArchivo}: un archivo por sesión (pruebas o una sola máquina).
+ * - {@link AlmacenSesionesKv}: adaptador sobre un almacén clave-valor de red ({@link ClienteKv}).
+ */
+public interface AlmacenSesiones {
+
+    /**
+     * @return los bytes de la sesión, o null si no existe o ya venció.
+     */
+    byte[] leer(String id);
+
+    /**
+     * Guarda (o reemplaza) la sesión con el tiempo de vida indicado.
+     */
+    void guardar(String id, byte[] datos, Duration ttl);
+
+    void eliminar(String id);
+}
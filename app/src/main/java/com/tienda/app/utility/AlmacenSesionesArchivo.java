@@ -0,0 +1,68 @@
+package com.tienda.app.utility;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+/**
+ * {@link AlmacenSesiones} en disco: un archivo por sesión dentro de un directorio.
+ *
+ * El vencimiento se controla con la fecha de modificación del archivo (se fija
+ * al instante de vencimiento). Pensado para pruebas o una sola máquina; las
+ * sesiones vencidas se borran al intentar leerlas.
+ */
+public class AlmacenSesionesArchivo implements AlmacenSesiones {
+
+    private final Path directorio;
+
+    public AlmacenSesionesArchivo(Path directorio) {
+        this.directorio = directorio;
+    }
+
+    @Override
+    public byte[] leer(String id) {
+        Path archivo = archivo(id);
+        try {
+            if (!Files.isRegularFile(archivo)) return null;
+            if (Files.getLastModifiedTime(archivo).toMillis() < System.currentTimeMillis()) {
+                Files.deleteIfExists(archivo);
+                return null;
+            }
+            return Files.readAllBytes(archivo);
+        } catch (IOException e) {
+            return null; // archivo ilegible: se trata como sesión inexistente
+        }
+    }
+
+    @Override
+    public void guardar(String id, byte[] datos, Duration ttl) {
+        try {
+            Files.createDirectories(directorio);
+            Path temporal = Files.createTempFile(directorio, "tmp", ".ses");
+            Files.write(temporal, datos);
+            Files.setLastModifiedTime(temporal,
+                    FileTime.fromMillis(System.currentTimeMillis() + ttl.toMillis()));
+            Files.move(temporal, archivo(id), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar la sesión", e);
+        }
+    }
+
+    @Override
+    public void eliminar(String id) {
+        try {
+            Files.deleteIfExists(archivo(id));
+        } catch (IOException e) {
+            // vencerá por sí sola
+        }
+    }
+
+    private Path archivo(String id) {
+        // los ids son base64url, pero se filtran igual para no salir del directorio
+        return directorio.resolve(id.replaceAll("[^A-Za-z0-9_-]", "_") + ".ses");
+    }
+}
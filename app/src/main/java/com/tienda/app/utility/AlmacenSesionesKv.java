@@ -0,0 +1,33 @@
+package com.tienda.app.utility;
+
+import java.time.Duration;
+
+/**
+ * {@link AlmacenSesiones} sobre un almacén clave-valor ({@link ClienteKv}).
+ * Cada sesión es una clave "prefijo + id" con vencimiento igual a su tiempo de inactividad.
+ */
+public class AlmacenSesionesKv implements AlmacenSesiones {
+
+    private final ClienteKv cliente;
+    private final String prefijo;
+
+    public AlmacenSesionesKv(ClienteKv cliente, String prefijo) {
+        this.cliente = cliente;
+        this.prefijo = prefijo;
+    }
+
+    @Override
+    public byte[] leer(String id) {
+        return cliente.get(prefijo + id);
+    }
+
+    @Override
+    public void guardar(String id, byte[] datos, Duration ttl) {
+        cliente.setex(prefijo + id, Math.max(1, ttl.toSeconds()), datos);
+    }
+
+    @Override
+    public void eliminar(String id) {
+        cliente.del(prefijo + id);
+    }
+}
@@ -0,0 +1,292 @@
+package com.tienda.app.utility;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Caché de dos niveles con tiempo de vida (TTL) y "stale-while-revalidate".
+ *
+ * Niveles:
+ * - Memoria: LRU acotado a un número máximo de entradas.
+ * - Disco (opcional): un archivo JSON por clave dentro de un directorio local,
+ *   de modo que los datos sobreviven a un reinicio de la aplicación.
+ *
+ * Cuando una entrada está vencida se devuelve igualmente el valor viejo y se
+ * lanza una recarga en segundo plano (una sola por clave). Solo se bloquea al
+ * llamador cuando la clave no existe en ningún nivel.
+ *
+ * Las cargas no pisan invalidaciones: cada franja de claves lleva un número de
+ * generación que {@link #invalidar(Object)} incrementa, y una carga que empezó
+ * antes de una invalidación de su franja se devuelve al llamador pero no se
+ * guarda (podría traer el valor anterior al cambio).
+ *
+ * @param <K> tipo de la clave (su toString() se usa como nombre de archivo).
+ * @param <V> tipo del valor (debe poder serializarse con Jackson si se usa disco).
+ */
+public class CacheDosNiveles<K, V> {
+
+    private final String nombre;
+    private final long ttlNanos;
+    private final Path directorio;
+    private final ObjectMapper mapper;
+    private final JavaType tipo;
+    private final Executor executorRecarga;
+
+    private final Map<K, Entrada<V>> memoria;
+    private final Set<K> recargando = ConcurrentHashMap.newKeySet();
+    /** Generación por franja de claves; sube en cada invalidación. */
+    private final AtomicLongArray generaciones = new AtomicLongArray(64);
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong aciertosVencidos = new AtomicLong();
+    private final AtomicLong aciertosDisco = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+    private final AtomicLong recargas = new AtomicLong();
+    private final AtomicLong recargasFallidas = new AtomicLong();
+    private final AtomicLong cargasDescartadas = new AtomicLong();
+
+    /**
+     * @param nombre nombre de la caché (subdirectorio en disco y prefijo de métricas).
+     * @param maxEntradas máximo de entradas en memoria.
+     * @param ttl tiempo tras el cual una entrada se considera vencida.
+     * @param directorio directorio base para el nivel en disco, o null para desactivarlo.
+     * @param mapper ObjectMapper usado para leer/escribir en disco.
+     * @param tipo tipo Jackson del valor.
+     * @param executorRecarga executor donde se ejecutan las recargas en segundo plano.
+     */
+    public CacheDosNiveles(String nombre, int maxEntradas, Duration ttl, Path directorio,
+                           ObjectMapper mapper, JavaType tipo, Executor executorRecarga) {
+        this.nombre = nombre;
+        this.ttlNanos = ttl.toNanos();
+        this.directorio = directorio == null ? null : directorio.resolve(nombre);
+        this.mapper = mapper;
+        this.tipo = tipo;
+        this.executorRecarga = executorRecarga;
+        this.memoria = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> eldest) {
+                if (size() > maxEntradas) {
+                    desalojos.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Caché solo en memoria (sin nivel en disco).
+     *
+     * @param nombre prefijo de métricas.
+     * @param maxEntradas máximo de entradas en memoria.
+     * @param ttl tiempo tras el cual una entrada se considera vencida.
+     * @param executorRecarga executor donde se ejecutan las recargas en segundo plano.
+     */
+    public CacheDosNiveles(String nombre, int maxEntradas, Duration ttl, Executor executorRecarga) {
+        this(nombre, maxEntradas, ttl, null, null, null, executorRecarga);
+    }
+
+    /**
+     * Obtiene el valor asociado a la clave, cargándolo con {@code cargador} si no
+     * existe en ningún nivel. Si la carga falla, la excepción se propaga y no se guarda nada.
+     *
+     * @param clave clave a buscar.
+     * @param cargador función que obtiene el valor desde el origen.
+     * @return el valor (posiblemente vencido mientras se recarga en segundo plano).
+     */
+    public V obtener(K clave, Function<K, V> cargador) {
+        Entrada<V> entrada;
+        synchronized (memoria) {
+            entrada = memoria.get(clave);
+        }
+
+        if (entrada == null) {
+            entrada = leerDisco(clave);
+            if (entrada != null) {
+                aciertosDisco.incrementAndGet();
+                synchronized (memoria) {
+                    memoria.put(clave, entrada);
+                }
+            }
+        } else {
+            aciertos.incrementAndGet();
+        }
+
+        if (entrada == null) {
+            fallos.incrementAndGet();
+            long generacion = generaciones.get(franja(clave));
+            V valor = cargador.apply(clave);
+            guardarSiVigente(clave, valor, generacion);
+            return valor;
+        }
+
+        if (System.nanoTime() - entrada.cargadoEn() > ttlNanos) {
+            aciertosVencidos.incrementAndGet();
+            recargarEnSegundoPlano(clave, cargador);
+        }
+        return entrada.valor();
+    }
+
+    /**
+     * Devuelve el valor en memoria o disco sin cargarlo ni recargarlo.
+     *
+     * @param clave clave a buscar.
+     * @return el valor guardado (aunque esté vencido) o null si no existe.
+     */
+    public V consultar(K clave) {
+        Entrada<V> entrada;
+        synchronized (memoria) {
+            entrada = memoria.get(clave);
+        }
+        if (entrada == null) {
+            entrada = leerDisco(clave);
+        }
+        return entrada == null ? null : entrada.valor();
+    }
+
+    /**
+     * Guarda un valor en ambos niveles, reiniciando su tiempo de vida.
+     */
+    public void guardar(K clave, V valor) {
+        if (valor == null) return;
+        synchronized (memoria) {
+            memoria.put(clave, new Entrada<>(valor, System.nanoTime()));
+        }
+        escribirDisco(clave, valor);
+    }
+
+    /**
+     * Elimina la clave de ambos niveles; el próximo acceso la vuelve a cargar.
+     * Las cargas de la misma franja que estén en curso no se guardarán.
+     */
+    public void invalidar(K clave) {
+        generaciones.incrementAndGet(franja(clave));
+        synchronized (memoria) {
+            memoria.remove(clave);
+        }
+        if (directorio == null) return;
+        try {
+            Files.deleteIfExists(archivo(clave));
+        } catch (IOException e) {
+            // si no se puede borrar, el archivo se reemplazará en la próxima escritura
+        }
+    }
+
+    /**
+     * Contadores para dimensionar la caché.
+     *
+     * @return mapa nombre → valor de cada contador.
+     */
+    public Map<String, Long> estadisticas() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        synchronized (memoria) {
+            stats.put(nombre + ".entradas", (long) memoria.size());
+        }
+        stats.put(nombre + ".aciertos", aciertos.get());
+        stats.put(nombre + ".aciertosVencidos", aciertosVencidos.get());
+        stats.put(nombre + ".aciertosDisco", aciertosDisco.get());
+        stats.put(nombre + ".fallos", fallos.get());
+        stats.put(nombre + ".desalojos", desalojos.get());
+        stats.put(nombre + ".recargas", recargas.get());
+        stats.put(nombre + ".recargasFallidas", recargasFallidas.get());
+        stats.put(nombre + ".cargasDescartadas", cargasDescartadas.get());
+        return stats;
+    }
+
+    private void recargarEnSegundoPlano(K clave, Function<K, V> cargador) {
+        if (!recargando.add(clave)) return; // ya hay una recarga en curso para esta clave
+        executorRecarga.execute(() -> {
+            try {
+                long generacion = generaciones.get(franja(clave));
+                guardarSiVigente(clave, cargador.apply(clave), generacion);
+                recargas.incrementAndGet();
+            } catch (RuntimeException e) {
+                // se mantiene el valor viejo; se reintentará en el próximo acceso
+                recargasFallidas.incrementAndGet();
+            } finally {
+                recargando.remove(clave);
+            }
+        });
+    }
+
+    /**
+     * Guarda el resultado de una carga solo si la franja de la clave no se invalidó
+     * desde que la carga empezó. La comparación se hace con el candado de memoria
+     * tomado: una invalidación posterior sube la generación antes de quitar la
+     * entrada, así que o bien la ve guardada y la quita, o bien la carga la ve
+     * cambiada y no guarda.
+     */
+    private void guardarSiVigente(K clave, V valor, long generacion) {
+        if (valor == null) return;
+        int franja = franja(clave);
+        synchronized (memoria) {
+            if (generaciones.get(franja) != generacion) {
+                cargasDescartadas.incrementAndGet();
+                return;
+            }
+            memoria.put(clave, new Entrada<>(valor, System.nanoTime()));
+        }
+        escribirDisco(clave, valor);
+        if (generaciones.get(franja) != generacion && directorio != null) {
+            // se invalidó mientras se escribía el archivo
+            try {
+                Files.deleteIfExists(archivo(clave));
+            } catch (IOException e) {
+                // se reemplazará en la próxima escritura
+            }
+        }
+    }
+
+    private int franja(K clave) {
+        int h = clave.hashCode();
+        return (h ^ (h >>> 16)) & (generaciones.length() - 1);
+    }
+
+    private Entrada<V> leerDisco(K clave) {
+        if (directorio == null) return null;
+        Path archivo = archivo(clave);
+        if (!Files.isRegularFile(archivo)) return null;
+        try {
+            V valor = mapper.readValue(archivo.toFile(), tipo);
+            // la antigüedad en disco se traduce a la escala de System.nanoTime()
+            long edad = System.currentTimeMillis() - Files.getLastModifiedTime(archivo).toMillis();
+            return new Entrada<>(valor, System.nanoTime() - Duration.ofMillis(Math.max(0, edad)).toNanos());
+        } catch (IOException e) {
+            return null; // archivo corrupto o ilegible: se trata como ausente
+        }
+    }
+
+    private void escribirDisco(K clave, V valor) {
+        if (directorio == null) return;
+        try {
+            Files.createDirectories(directorio);
+            Path destino = archivo(clave);
+            Path temporal = Files.createTempFile(directorio, "tmp", ".json");
+            mapper.writeValue(temporal.toFile(), valor);
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // el nivel en disco es opcional: si falla, se sigue trabajando solo en memoria
+        }
+    }
+
+    private Path archivo(K clave) {
+        return directorio.resolve(clave.toString().replaceAll("[^A-Za-z0-9_-]", "_") + ".json");
+    }
+
+    private record Entrada<V>(V valor, long cargadoEn) {}
+}
@@ -0,0 +1,69 @@
+package com.tienda.app.utility;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Mide en esta máquina cuánto tarda BCrypt con cada costo y elige el mayor costo
+ * que se mantiene dentro de una latencia objetivo.
+ *
+ * Uso como herramienta (desde app/, tras compilar):
+ *   mvn -q dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/classes:$(cat target/cp.txt) com.tienda.app.utility.CalibradorHash 250
+ * o automáticamente al arrancar con hash.bcrypt.costo=0 (ver {@link SeguridadConfig}).
+ */
+public final class CalibradorHash {
+
+    private static final int COSTO_MINIMO = 8;
+    private static final int COSTO_MAXIMO = 16;
+
+    private CalibradorHash() {
+    }
+
+    /**
+     * Elige el costo de BCrypt para la latencia objetivo.
+     *
+     * Cada costo duplica el tiempo, así que se mide desde el mínimo hacia arriba y se
+     * detiene en cuanto una medición supera el objetivo.
+     *
+     * @param objetivoMs latencia máxima deseada por hash, en milisegundos.
+     * @return el costo elegido (al menos {@value #COSTO_MINIMO}).
+     */
+    public static int elegirCostoBcrypt(long objetivoMs) {
+        int elegido = COSTO_MINIMO;
+        for (int costo = COSTO_MINIMO; costo <= COSTO_MAXIMO; costo++) {
+            long ms = medirBcrypt(costo);
+            if (ms > objetivoMs) break;
+            elegido = costo;
+        }
+        return elegido;
+    }
+
+    /**
+     * Mide un hash BCrypt con el costo dado (la mejor de 3 corridas, tras un calentamiento).
+     *
+     * @return milisegundos por hash.
+     */
+    public static long medirBcrypt(int costo) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(costo);
+        encoder.encode("calentamiento");
+        long mejor = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long inicio = System.nanoTime();
+            encoder.encode("calibracion-" + i);
+            mejor = Math.min(mejor, System.nanoTime() - inicio);
+        }
+        return mejor / 1_000_000;
+    }
+
+    public static void main(String[] args) {
+        long objetivoMs = args.length > 0 ? Long.parseLong(args[0]) : 250;
+        int elegido = COSTO_MINIMO;
+        for (int costo = COSTO_MINIMO; costo <= COSTO_MAXIMO; costo++) {
+            long ms = medirBcrypt(costo);
+            System.out.println("bcrypt costo " + costo + ": " + ms + " ms");
+            if (ms > objetivoMs) break;
+            elegido = costo;
+        }
+        System.out.println("hash.bcrypt.costo=" + elegido + "  (objetivo " + objetivoMs + " ms)");
+    }
+}
@@ -0,0 +1,91 @@
+package com.tienda.app.utility;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker simple para llamadas a servicios externos.
+ *
+ * Estados:
+ * - CERRADO: las llamadas pasan; se cuentan los fallos consecutivos.
+ * - ABIERTO: tras {@code fallosParaAbrir} fallos seguidos, se rechazan todas las
+ *   llamadas durante {@code tiempoAbierto} sin tocar el servicio externo.
+ * - SEMIABIERTO: vencido ese tiempo, se deja pasar una sola llamada de prueba;
+ *   si funciona se cierra el circuito, si falla se vuelve a abrir.
+ */
+public class CircuitBreaker {
+
+    public enum Estado { CERRADO, ABIERTO, SEMIABIERTO }
+
+    private final String nombre;
+    private final int fallosParaAbrir;
+    private final long tiempoAbiertoNanos;
+
+    private Estado estado = Estado.CERRADO;
+    private int fallosSeguidos;
+    private long abiertoDesde;
+    private boolean pruebaEnCurso;
+
+    private final AtomicLong rechazos = new AtomicLong();
+    private final AtomicLong aperturas = new AtomicLong();
+
+    public CircuitBreaker(String nombre, int fallosParaAbrir, Duration tiempoAbierto) {
+        this.nombre = nombre;
+        this.fallosParaAbrir = fallosParaAbrir;
+        this.tiempoAbiertoNanos = tiempoAbierto.toNanos();
+    }
+
+    /**
+     * Verifica si se puede hacer la llamada; si no, lanza la excepción de inmediato.
+     *
+     * @throws ServicioNoDisponibleException si el circuito está abierto.
+     */
+    public synchronized void verificar() {
+        if (estado == Estado.ABIERTO && System.nanoTime() - abiertoDesde >= tiempoAbiertoNanos) {
+            estado = Estado.SEMIABIERTO;
+            pruebaEnCurso = false;
+        }
+        if (estado == Estado.CERRADO) return;
+        if (estado == Estado.SEMIABIERTO && !pruebaEnCurso) {
+            pruebaEnCurso = true;
+            return;
+        }
+        rechazos.incrementAndGet();
+        throw new ServicioNoDisponibleException("Circuito " + nombre + " abierto");
+    }
+
+    public synchronized void registrarExito() {
+        estado = Estado.CERRADO;
+        fallosSeguidos = 0;
+        pruebaEnCurso = false;
+    }
+
+    public synchronized void registrarFallo() {
+        fallosSeguidos++;
+        if (estado == Estado.SEMIABIERTO || fallosSeguidos >= fallosParaAbrir) {
+            if (estado != Estado.ABIERTO) aperturas.incrementAndGet();
+            estado = Estado.ABIERTO;
+            abiertoDesde = System.nanoTime();
+            pruebaEnCurso = false;
+        }
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    /**
+     * Contadores del circuito.
+     *
+     * @return mapa nombre → valor (el estado se expresa como su ordinal).
+     */
+    public Map<String, Long> estadisticas() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put(nombre + ".estado", (long) getEstado().ordinal());
+        stats.put(nombre + ".rechazos", rechazos.get());
+        stats.put(nombre + ".aperturas", aperturas.get());
+        return stats;
+    }
+}
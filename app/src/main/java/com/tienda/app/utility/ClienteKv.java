@@ -0,0 +1,31 @@
+package com.tienda.app.utility;
+
+/**
+ * Operaciones mínimas de un almacén clave-valor de red (estilo Redis/Memcached)
+ * que necesitan {@link AlmacenSesionesKv} y {@link LimitadorKv}.
+ *
+ * Para usar un servidor real basta con implementar esta interfaz sobre su
+ * cliente; {@link ClienteKvLocal} es la versión en memoria para desarrollo y pruebas.
+ */
+public interface ClienteKv {
+
+    /**
+     * @return el valor, o null si la clave no existe o venció.
+     */
+    byte[] get(String clave);
+
+    /**
+     * Guarda el valor con vencimiento en segundos.
+     */
+    void setex(String clave, long segundos, byte[] valor);
+
+    void del(String clave);
+
+    /**
+     * Incrementa un contador de forma atómica (como INCR de Redis). Si la clave no
+     * existía, la crea en 1 con vencimiento en segundos (como EXPIRE ... NX).
+     *
+     * @return el valor después de incrementar.
+     */
+    long incr(String clave, long segundos);
+}
@@ -0,0 +1,50 @@
+package com.tienda.app.utility;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ClienteKv} en memoria del proceso: sustituto local de un almacén de red.
+ * Las claves vencidas se descartan al leerlas.
+ */
+public class ClienteKvLocal implements ClienteKv {
+
+    private final Map<String, Valor> valores = new ConcurrentHashMap<>();
+
+    @Override
+    public byte[] get(String clave) {
+        Valor valor = valores.get(clave);
+        if (valor == null) return null;
+        if (System.currentTimeMillis() > valor.venceEn()) {
+            valores.remove(clave, valor);
+            return null;
+        }
+        return valor.datos();
+    }
+
+    @Override
+    public void setex(String clave, long segundos, byte[] valor) {
+        valores.put(clave, new Valor(valor, System.currentTimeMillis() + segundos * 1000));
+    }
+
+    @Override
+    public void del(String clave) {
+        valores.remove(clave);
+    }
+
+    @Override
+    public long incr(String clave, long segundos) {
+        long ahora = System.currentTimeMillis();
+        Valor valor = valores.compute(clave, (k, actual) -> {
+            if (actual == null || ahora > actual.venceEn()) {
+                return new Valor(ByteBuffer.allocate(Long.BYTES).putLong(1).array(), ahora + segundos * 1000);
+            }
+            long siguiente = ByteBuffer.wrap(actual.datos()).getLong() + 1;
+            return new Valor(ByteBuffer.allocate(Long.BYTES).putLong(siguiente).array(), actual.venceEn());
+        });
+        return ByteBuffer.wrap(valor.datos()).getLong();
+    }
+
+    private record Valor(byte[] datos, long venceEn) {}
+}
@@ -0,0 +1,27 @@
+package com.tienda.app.utility;
+
+/**
+ * Excepción lanzada por el checkout cuando la compra no puede completarse.
+ * Al salir del método transaccional revierte todo lo hecho (orden, stock y cobro).
+ */
+public class CompraRechazadaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Causa del rechazo, para mostrar el mensaje en el lugar correcto del formulario.
+     * CLAVE_AJENA: la clave de idempotencia ya la usó otro usuario (formulario copiado o manipulado).
+     */
+    public enum Motivo { SIN_STOCK, PAGO_RECHAZADO, CLAVE_AJENA }
+
+    private final Motivo motivo;
+
+    public CompraRechazadaException(Motivo motivo, String message) {
+        super(message);
+        this.motivo = motivo;
+    }
+
+    public Motivo getMotivo() {
+        return motivo;
+    }
+}
@@ -0,0 +1,92 @@
+package com.tienda.app.utility;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom para cadenas: responde "seguro que no está" o "quizá está".
+ *
+ * Se dimensiona a partir de la cantidad esperada de elementos y la tasa de falsos
+ * positivos deseada (m = -n·ln p / ln² 2 bits, k = m/n·ln 2 funciones). Por ejemplo,
+ * 1 millón de elementos con 1 % de falsos positivos ocupa unos 1,2 MB.
+ *
+ * Las k posiciones se derivan de un hash de 64 bits por doble hashing. Los bits
+ * se guardan en un {@link AtomicLongArray}, así que agregar y consultar desde
+ * varios hilos no requiere candados. No admite borrar elementos.
+ */
+public class FiltroBloom {
+
+    private final AtomicLongArray bits;
+    private final long cantidadBits;
+    private final int funciones;
+
+    /**
+     * @param esperados cantidad de elementos esperada.
+     * @param falsosPositivos tasa de falsos positivos deseada (0 &lt; p &lt; 1).
+     */
+    public FiltroBloom(long esperados, double falsosPositivos) {
+        long n = Math.max(1, esperados);
+        long m = (long) Math.ceil(-n * Math.log(falsosPositivos) / (Math.log(2) * Math.log(2)));
+        this.cantidadBits = Math.max(64, (m + 63) / 64 * 64);
+        this.funciones = Math.max(1, (int) Math.round((double) cantidadBits / n * Math.log(2)));
+        this.bits = new AtomicLongArray(Math.toIntExact(cantidadBits / 64));
+    }
+
+    public void agregar(String valor) {
+        long h = hash(valor);
+        long h1 = h;
+        long h2 = mezclar(h) | 1;
+        for (int i = 0; i < funciones; i++) {
+            long bit = Math.floorMod(h1 + i * h2, cantidadBits);
+            int palabra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long actual;
+            while (((actual = bits.get(palabra)) & mascara) == 0
+                    && !bits.compareAndSet(palabra, actual, actual | mascara)) {
+                // otro hilo cambió la palabra: se reintenta
+            }
+        }
+    }
+
+    /**
+     * @return false si el valor seguro no fue agregado; true si quizá lo fue.
+     */
+    public boolean podriaContener(String valor) {
+        long h = hash(valor);
+        long h1 = h;
+        long h2 = mezclar(h) | 1;
+        for (int i = 0; i < funciones; i++) {
+            long bit = Math.floorMod(h1 + i * h2, cantidadBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    public long getCantidadBits() {
+        return cantidadBits;
+    }
+
+    public int getFunciones() {
+        return funciones;
+    }
+
+    /** FNV-1a de 64 bits sobre UTF-8, mezclado para repartir mejor los bits. */
+    private static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        return mezclar(h);
+    }
+
+    /** Paso final de MurmurHash3 (fmix64). */
+    private static long mezclar(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,83 @@
+package com.tienda.app.utility;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias con cubetas fijas en milisegundos (potencias de 2: hasta
+ * 1 ms, 2 ms, 4 ms, ... 8192 ms y una última para todo lo mayor).
+ *
+ * Registrar una muestra es un incremento atómico sin bloqueos, así que puede usarse
+ * en cada petición. Los percentiles son aproximados (límite superior de la cubeta).
+ */
+public class HistogramaLatencia {
+
+    private static final int CUBETAS = 15;
+
+    private final String nombre;
+    private final AtomicLongArray conteos = new AtomicLongArray(CUBETAS);
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * @param nombre prefijo de métricas.
+     */
+    public HistogramaLatencia(String nombre) {
+        this.nombre = nombre;
+    }
+
+    /**
+     * Registra una muestra.
+     *
+     * @param nanos duración medida con System.nanoTime().
+     */
+    public void registrar(long nanos) {
+        long ms = Math.max(0, nanos) / 1_000_000;
+        int cubeta = ms <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(ms - 1);
+        conteos.incrementAndGet(Math.min(cubeta, CUBETAS - 1));
+        totalNanos.add(nanos);
+    }
+
+    /**
+     * Conteo, promedio, percentiles 50/95/99 y conteo por cubeta ("le" = menor o igual a).
+     *
+     * @return mapa nombre → valor.
+     */
+    public Map<String, Long> estadisticas() {
+        long[] copia = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = conteos.get(i);
+            total += copia[i];
+        }
+
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put(nombre + ".conteo", total);
+        stats.put(nombre + ".promedioMs", total == 0 ? 0 : totalNanos.sum() / total / 1_000_000);
+        stats.put(nombre + ".p50Ms", percentil(copia, total, 0.50));
+        stats.put(nombre + ".p95Ms", percentil(copia, total, 0.95));
+        stats.put(nombre + ".p99Ms", percentil(copia, total, 0.99));
+        for (int i = 0; i < CUBETAS - 1; i++) {
+            stats.put(nombre + ".le" + limite(i) + "ms", copia[i]);
+        }
+        stats.put(nombre + ".mayor" + limite(CUBETAS - 2) + "ms", copia[CUBETAS - 1]);
+        return stats;
+    }
+
+    private static long percentil(long[] conteos, long total, double fraccion) {
+        if (total == 0) return 0;
+        long objetivo = (long) Math.ceil(total * fraccion);
+        long acumulado = 0;
+        for (int i = 0; i < conteos.length; i++) {
+            acumulado += conteos[i];
+            if (acumulado >= objetivo) return limite(i);
+        }
+        return limite(conteos.length - 1);
+    }
+
+    /** Límite superior de la cubeta i: 1, 2, 4, ... ms (la cubeta 0 incluye 0 ms). */
+    private static long limite(int cubeta) {
+        return 1L << cubeta;
+    }
+}
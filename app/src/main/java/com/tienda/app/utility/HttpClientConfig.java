@@ -0,0 +1,115 @@
+package com.tienda.app.utility;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Configuración del cliente HTTP compartido para todas las llamadas salientes
+ * (PokeAPI y cualquier integración futura).
+ *
+ * Se crea un único {@link HttpClient} del JDK, que mantiene un pool de conexiones
+ * con keep-alive y negocia HTTP/2 cuando el servidor lo soporta. Sobre él se
+ * construye un {@link RestTemplate} con:
+ * - Timeout de conexión y de lectura configurables.
+ * - Un máximo de peticiones simultáneas por host.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public HttpClient httpClient(@Value("${http.cliente.timeout-conexion-ms:2000}") long timeoutConexionMs) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(timeoutConexionMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(HttpClient httpClient,
+                                     @Value("${http.cliente.timeout-lectura-ms:2000}") long timeoutLecturaMs,
+                                     @Value("${http.cliente.max-conexiones-por-host:32}") int maxConexionesPorHost) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(Duration.ofMillis(timeoutLecturaMs));
+
+        RestTemplate restTemplate = new RestTemplate(factory);
+        restTemplate.getInterceptors().add(limitePorHost(maxConexionesPorHost));
+        return restTemplate;
+    }
+
+    /**
+     * Interceptor que limita cuántas peticiones pueden estar abiertas a la vez contra un mismo host.
+     * El permiso se libera cuando se cierra la respuesta (después de leer el cuerpo).
+     */
+    private static ClientHttpRequestInterceptor limitePorHost(int maxPorHost) {
+        Map<String, Semaphore> porHost = new ConcurrentHashMap<>();
+        return (request, body, execution) -> {
+            Semaphore permisos = porHost.computeIfAbsent(request.getURI().getAuthority(), h -> new Semaphore(maxPorHost));
+            try {
+                permisos.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Petición interrumpida esperando conexión a " + request.getURI().getHost(), e);
+            }
+            try {
+                return new RespuestaConPermiso(execution.execute(request, body), permisos);
+            } catch (IOException | RuntimeException e) {
+                permisos.release();
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Respuesta que devuelve el permiso del host al cerrarse (una sola vez).
+     */
+    private static final class RespuestaConPermiso implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegada;
+        private Semaphore permisos;
+
+        RespuestaConPermiso(ClientHttpResponse delegada, Semaphore permisos) {
+            this.delegada = delegada;
+            this.permisos = permisos;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException { return delegada.getStatusCode(); }
+
+        @Override
+        public String getStatusText() throws IOException { return delegada.getStatusText(); }
+
+        @Override
+        public HttpHeaders getHeaders() { return delegada.getHeaders(); }
+
+        @Override
+        public InputStream getBody() throws IOException { return delegada.getBody(); }
+
+        @Override
+        public void close() {
+            try {
+                delegada.close();
+            } finally {
+                if (permisos != null) {
+                    permisos.release();
+                    permisos = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.tienda.app.utility;
+
+import java.util.Map;
+
+/**
+ * Limita cuántos intentos se aceptan por clave (email, IP, ...) en el tiempo.
+ *
+ * Implementaciones:
+ * - {@link LimitadorTokenBucket}: en memoria del proceso, token bucket exacto.
+ * - {@link LimitadorKv}: compartido entre instancias a través de un {@link ClienteKv}.
+ */
+public interface LimitadorIntentos {
+
+    /**
+     * Consume un intento para la clave.
+     *
+     * @return true si se permite; false si la clave superó su límite.
+     */
+    boolean permitir(String clave);
+
+    /**
+     * Olvida los intentos consumidos por la clave (vuelve a tener la capacidad completa).
+     */
+    void reiniciar(String clave);
+
+    /**
+     * Contadores de intentos permitidos, rechazados y claves en memoria.
+     */
+    Map<String, Long> estadisticas();
+}
@@ -0,0 +1,66 @@
+package com.tienda.app.utility;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limitador compartido entre instancias sobre un {@link ClienteKv}.
+ *
+ * Usa una ventana fija por clave: un contador atómico ({@link ClienteKv#incr})
+ * que vence al terminar la ventana. Permite hasta {@code capacidad} intentos por
+ * ventana; es la aproximación habitual de un token bucket en Redis y solo cuesta
+ * un viaje de red por intento.
+ *
+ * La memoria la administra el almacén: cada contador vence con su ventana.
+ */
+public class LimitadorKv implements LimitadorIntentos {
+
+    private final String nombre;
+    private final ClienteKv clienteKv;
+    private final String prefijo;
+    private final int capacidad;
+    private final long ventanaMs;
+
+    private final LongAdder permitidos = new LongAdder();
+    private final LongAdder rechazados = new LongAdder();
+
+    /**
+     * @param nombre prefijo de métricas y de las claves en el almacén.
+     * @param clienteKv almacén compartido.
+     * @param capacidad intentos permitidos por ventana.
+     * @param ventanaMs duración de la ventana.
+     */
+    public LimitadorKv(String nombre, ClienteKv clienteKv, int capacidad, long ventanaMs) {
+        this.nombre = nombre;
+        this.clienteKv = clienteKv;
+        this.prefijo = "limite:" + nombre + ":";
+        this.capacidad = capacidad;
+        this.ventanaMs = ventanaMs;
+    }
+
+    @Override
+    public boolean permitir(String clave) {
+        long intentos = clienteKv.incr(claveVentana(clave), Math.max(1, ventanaMs / 1000));
+        boolean permitido = intentos <= capacidad;
+        (permitido ? permitidos : rechazados).increment();
+        return permitido;
+    }
+
+    @Override
+    public void reiniciar(String clave) {
+        clienteKv.del(claveVentana(clave));
+    }
+
+    private String claveVentana(String clave) {
+        return prefijo + clave + ":" + System.currentTimeMillis() / ventanaMs;
+    }
+
+    @Override
+    public Map<String, Long> estadisticas() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put(nombre + ".permitidos", permitidos.sum());
+        stats.put(nombre + ".rechazados", rechazados.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,180 @@
+package com.tienda.app.utility;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limitador en memoria con un token bucket por clave.
+ *
+ * Cada clave empieza con {@code capacidad} fichas; cada intento consume una y se
+ * recargan a razón de {@code recargaPorMinuto}. Sin fichas, el intento se rechaza.
+ *
+ * Concurrencia: las claves se reparten en franjas, cada una con su propio candado
+ * y su propio mapa, así los intentos de claves distintas casi nunca compiten.
+ *
+ * Memoria acotada: cada franja guarda como máximo maxClaves / franjas cubetas.
+ * Solo se desalojan cubetas que ya se recargaron por completo (equivalen a una
+ * clave nueva); una cubeta con intentos consumidos nunca se desaloja, porque si
+ * no bastaría con inundar la franja de claves nuevas para reiniciar el límite de
+ * la víctima. Si la franja está llena de cubetas en uso, las claves nuevas se
+ * rechazan hasta que alguna se recargue (métrica "sin-lugar"). Además
+ * {@link #purgar()} quita periódicamente las cubetas recargadas.
+ */
+public class LimitadorTokenBucket implements LimitadorIntentos {
+
+    private final String nombre;
+    private final double capacidad;
+    private final double fichasPorNano;
+    private final Franja[] franjas;
+
+    private final LongAdder permitidos = new LongAdder();
+    private final LongAdder rechazados = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder sinLugar = new LongAdder();
+
+    /**
+     * @param nombre prefijo de métricas.
+     * @param capacidad intentos seguidos permitidos (ráfaga).
+     * @param recargaPorMinuto intentos que se recuperan por minuto.
+     * @param franjas cantidad de franjas (se redondea a potencia de 2).
+     * @param maxClaves máximo de claves en memoria entre todas las franjas.
+     */
+    public LimitadorTokenBucket(String nombre, int capacidad, int recargaPorMinuto, int franjas, int maxClaves) {
+        this.nombre = nombre;
+        this.capacidad = capacidad;
+        this.fichasPorNano = recargaPorMinuto / 60_000_000_000.0;
+        int cantidad = franjas <= 1 ? 1 : Integer.highestOneBit((franjas - 1) << 1);
+        int maxPorFranja = Math.max(1, maxClaves / cantidad);
+        this.franjas = new Franja[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            this.franjas[i] = new Franja(maxPorFranja);
+        }
+    }
+
+    @Override
+    public boolean permitir(String clave) {
+        Franja franja = franja(clave);
+        long ahora = System.nanoTime();
+        boolean permitido;
+        franja.candado.lock();
+        try {
+            Cubeta cubeta = franja.cubetas.get(clave);
+            if (cubeta == null && franja.cubetas.size() >= franja.maxClaves
+                    && desalojarRecargadas(franja, ahora) == 0) {
+                sinLugar.increment();
+                permitido = false;
+            } else {
+                if (cubeta == null) {
+                    cubeta = new Cubeta(capacidad, ahora);
+                    franja.cubetas.put(clave, cubeta);
+                } else {
+                    recargar(cubeta, ahora);
+                }
+                permitido = cubeta.fichas >= 1;
+                if (permitido) cubeta.fichas -= 1;
+            }
+        } finally {
+            franja.candado.unlock();
+        }
+        (permitido ? permitidos : rechazados).increment();
+        return permitido;
+    }
+
+    @Override
+    public void reiniciar(String clave) {
+        Franja franja = franja(clave);
+        franja.candado.lock();
+        try {
+            // sin cubeta, la clave empieza con la capacidad completa
+            franja.cubetas.remove(clave);
+        } finally {
+            franja.candado.unlock();
+        }
+    }
+
+    /**
+     * Quita las cubetas que ya se recargaron por completo.
+     */
+    public void purgar() {
+        long ahora = System.nanoTime();
+        for (Franja franja : franjas) {
+            franja.candado.lock();
+            try {
+                desalojarRecargadas(franja, ahora);
+            } finally {
+                franja.candado.unlock();
+            }
+        }
+    }
+
+    /**
+     * Quita de la franja (con su candado tomado) las cubetas recargadas por completo.
+     * Se quitan todas de una vez para que una franja llena no se recorra en cada
+     * clave nueva.
+     *
+     * @return cantidad de cubetas quitadas.
+     */
+    private int desalojarRecargadas(Franja franja, long ahora) {
+        int antes = franja.cubetas.size();
+        franja.cubetas.values().removeIf(cubeta -> {
+            recargar(cubeta, ahora);
+            return cubeta.fichas >= capacidad;
+        });
+        int quitadas = antes - franja.cubetas.size();
+        desalojos.add(quitadas);
+        return quitadas;
+    }
+
+    @Override
+    public Map<String, Long> estadisticas() {
+        long claves = 0;
+        for (Franja franja : franjas) {
+            franja.candado.lock();
+            try {
+                claves += franja.cubetas.size();
+            } finally {
+                franja.candado.unlock();
+            }
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put(nombre + ".permitidos", permitidos.sum());
+        stats.put(nombre + ".rechazados", rechazados.sum());
+        stats.put(nombre + ".claves", claves);
+        stats.put(nombre + ".desalojos", desalojos.sum());
+        stats.put(nombre + ".sin-lugar", sinLugar.sum());
+        return stats;
+    }
+
+    private void recargar(Cubeta cubeta, long ahora) {
+        cubeta.fichas = Math.min(capacidad, cubeta.fichas + (ahora - cubeta.actualizada) * fichasPorNano);
+        cubeta.actualizada = ahora;
+    }
+
+    private Franja franja(String clave) {
+        int h = clave.hashCode();
+        return franjas[(h ^ (h >>> 16)) & (franjas.length - 1)];
+    }
+
+    private static final class Franja {
+        final ReentrantLock candado = new ReentrantLock();
+        final Map<String, Cubeta> cubetas = new HashMap<>();
+        final int maxClaves;
+
+        Franja(int maxClaves) {
+            this.maxClaves = maxClaves;
+        }
+    }
+
+    private static final class Cubeta {
+        double fichas;
+        long actualizada;
+
+        Cubeta(double fichas, long actualizada) {
+            this.fichas = fichas;
+            this.actualizada = actualizada;
+        }
+    }
+}
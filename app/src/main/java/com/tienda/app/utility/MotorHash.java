@@ -0,0 +1,117 @@
+package com.tienda.app.utility;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.ClassUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Motor de hash de contraseñas que guarda el algoritmo y su costo en cada hash,
+ * para poder cambiarlos sin invalidar las cuentas existentes.
+ *
+ * Formato de password_hash:
+ * - {bcrypt}$2a$12$...            → BCrypt; el costo va en el propio hash.
+ * - {argon2}$argon2id$v=19$m=...  → Argon2id; memoria, iteraciones y paralelismo van en el hash.
+ * - $2a$12$... (sin prefijo)      → hashes anteriores a este motor; se leen como BCrypt.
+ *
+ * Los hashes nuevos usan siempre el algoritmo y costo configurados. Con
+ * {@link #upgradeEncoding(String)} se sabe si un hash guardado quedó con otro
+ * algoritmo o con otro costo (mayor o menor) y conviene recalcularlo en el
+ * próximo login exitoso.
+ *
+ * Argon2id requiere BouncyCastle (org.bouncycastle:bcprov-jdk18on) en el classpath;
+ * sin él solo se ofrece BCrypt.
+ */
+public class MotorHash implements PasswordEncoder {
+
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+
+    private static final Pattern COSTO_BCRYPT = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+    private static final Pattern PARAMETROS_ARGON2 = Pattern.compile("^\\$argon2id\\$v=\\d+\\$(m=\\d+,t=\\d+,p=\\d+)\\$");
+
+    private final String algoritmo;
+    private final int costoBcrypt;
+    private final String parametrosArgon2;
+    private final DelegatingPasswordEncoder delegado;
+
+    /**
+     * @param algoritmo algoritmo para los hashes nuevos ({@link #BCRYPT} o {@link #ARGON2}).
+     * @param costoBcrypt costo de BCrypt (4..31; cada punto duplica el tiempo).
+     * @param memoriaArgon2Kb memoria de Argon2id en KiB.
+     * @param iteracionesArgon2 iteraciones de Argon2id.
+     * @param paralelismoArgon2 paralelismo de Argon2id.
+     */
+    public MotorHash(String algoritmo, int costoBcrypt, int memoriaArgon2Kb, int iteracionesArgon2, int paralelismoArgon2) {
+        if (ARGON2.equals(algoritmo) && !argon2Disponible()) {
+            throw new IllegalStateException("Argon2id requiere BouncyCastle (org.bouncycastle:bcprov-jdk18on) en el classpath");
+        }
+        if (!BCRYPT.equals(algoritmo) && !ARGON2.equals(algoritmo)) {
+            throw new IllegalArgumentException("Algoritmo de hash desconocido: " + algoritmo);
+        }
+        this.algoritmo = algoritmo;
+        this.costoBcrypt = costoBcrypt;
+        this.parametrosArgon2 = "m=" + memoriaArgon2Kb + ",t=" + iteracionesArgon2 + ",p=" + paralelismoArgon2;
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(costoBcrypt);
+        Map<String, PasswordEncoder> codificadores = new HashMap<>();
+        codificadores.put(BCRYPT, bcrypt);
+        if (argon2Disponible()) {
+            codificadores.put(ARGON2, new Argon2PasswordEncoder(16, 32, paralelismoArgon2, memoriaArgon2Kb, iteracionesArgon2));
+        }
+        this.delegado = new DelegatingPasswordEncoder(algoritmo, codificadores);
+        this.delegado.setDefaultPasswordEncoderForMatches(bcrypt);
+    }
+
+    @Override
+    public String encode(CharSequence contrasena) {
+        return delegado.encode(contrasena);
+    }
+
+    @Override
+    public boolean matches(CharSequence contrasena, String hash) {
+        return hash != null && delegado.matches(contrasena, hash);
+    }
+
+    /**
+     * @return true si el hash no usa el algoritmo o el costo configurados (en cualquier dirección).
+     */
+    @Override
+    public boolean upgradeEncoding(String hash) {
+        if (hash == null) return false;
+        String id = BCRYPT;
+        String cuerpo = hash;
+        if (hash.startsWith("{")) {
+            int fin = hash.indexOf('}');
+            if (fin < 0) return true;
+            id = hash.substring(1, fin);
+            cuerpo = hash.substring(fin + 1);
+        }
+        if (!id.equals(algoritmo)) return true;
+
+        if (BCRYPT.equals(id)) {
+            Matcher m = COSTO_BCRYPT.matcher(cuerpo);
+            return !m.find() || Integer.parseInt(m.group(1)) != costoBcrypt;
+        }
+        Matcher m = PARAMETROS_ARGON2.matcher(cuerpo);
+        return !m.find() || !m.group(1).equals(parametrosArgon2);
+    }
+
+    public String getAlgoritmo() {
+        return algoritmo;
+    }
+
+    public int getCostoBcrypt() {
+        return costoBcrypt;
+    }
+
+    public static boolean argon2Disponible() {
+        return ClassUtils.isPresent("org.bouncycastle.crypto.generators.Argon2BytesGenerator", MotorHash.class.getClassLoader());
+    }
+}
@@ -0,0 +1,131 @@
+package com.tienda.app.utility;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.tienda.app.model.Pokemon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodificador en streaming de las respuestas de la PokeAPI.
+ *
+ * Recorre el JSON token por token y solo extrae los campos que necesita
+ * {@link Pokemon} (id, name, height, weight y sprites.front_default). El resto del
+ * documento (moves, stats, game_indices, etc.) se salta sin construir objetos,
+ * a diferencia de deserializar todo a {@code Map<String, Object>}.
+ */
+public class PokeApiDecoder {
+
+    private final JsonFactory factory;
+
+    public PokeApiDecoder(JsonFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Lee el detalle de un Pokémon (respuesta de /pokemon/{id}).
+     *
+     * @param in cuerpo de la respuesta.
+     * @return el Pokémon con los campos básicos y la imagen.
+     */
+    public Pokemon leerDetalle(InputStream in) throws IOException {
+        Pokemon p = new Pokemon();
+        try (JsonParser parser = factory.createParser(in)) {
+            esperar(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                JsonToken valor = parser.nextToken();
+                switch (campo) {
+                    case "id" -> p.setId(leerEntero(parser, valor));
+                    case "name" -> p.setName(valor == JsonToken.VALUE_STRING ? parser.getText() : null);
+                    case "height" -> p.setHeight(leerEntero(parser, valor));
+                    case "weight" -> p.setWeight(leerEntero(parser, valor));
+                    case "sprites" -> p.setImage(leerImagen(parser, valor));
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Lee los ids de una lista paginada (respuesta de /pokemon?limit=N),
+     * tomándolos de la url de cada resultado.
+     *
+     * @param in cuerpo de la respuesta.
+     * @return ids en el orden de la API.
+     */
+    public List<Integer> leerIdsLista(InputStream in) throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try (JsonParser parser = factory.createParser(in)) {
+            esperar(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                JsonToken valor = parser.nextToken();
+                if (!campo.equals("results") || valor != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String campoResultado = parser.currentName();
+                        parser.nextToken();
+                        if (campoResultado.equals("url")) {
+                            ids.add(idDesdeUrl(parser.getText()));
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Extrae el id de una url de la forma ".../pokemon/25/".
+     */
+    public static Integer idDesdeUrl(String url) {
+        int fin = url.endsWith("/") ? url.length() - 1 : url.length();
+        return Integer.valueOf(url.substring(url.lastIndexOf('/', fin - 1) + 1, fin));
+    }
+
+    /**
+     * Valor entero del campo actual, o 0 si viene null o con otro tipo (en ese
+     * caso se salta el valor completo para no desalinear el recorrido).
+     */
+    private static int leerEntero(JsonParser parser, JsonToken valor) throws IOException {
+        if (valor == JsonToken.VALUE_NUMBER_INT) return parser.getIntValue();
+        parser.skipChildren();
+        return 0;
+    }
+
+    private static String leerImagen(JsonParser parser, JsonToken valor) throws IOException {
+        if (valor != JsonToken.START_OBJECT) {
+            // null, o un arreglo u otro valor inesperado: se salta entero
+            parser.skipChildren();
+            return null;
+        }
+        String imagen = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String campo = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (campo.equals("front_default") && token == JsonToken.VALUE_STRING) {
+                imagen = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return imagen;
+    }
+
+    private static void esperar(JsonToken actual, JsonToken esperado) throws IOException {
+        if (actual != esperado) {
+            throw new IOException("Respuesta inesperada de la PokeAPI: se esperaba " + esperado + " y llegó " + actual);
+        }
+    }
+}
@@ -1,13 +1,29 @@
 package com.tienda.app.utility;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+/**
+ * Configuración del hash de contraseñas.
+ *
+ * - hash.algoritmo: bcrypt (por defecto) o argon2 (requiere BouncyCastle).
+ * - hash.bcrypt.costo: costo de BCrypt; 0 = calibrarlo al arrancar para hash.objetivo-ms.
+ * - hash.argon2.*: memoria (KiB), iteraciones y paralelismo de Argon2id.
+ *
+ * Los hashes guardados con otro algoritmo o costo se siguen aceptando y se
+ * recalculan en el siguiente login exitoso (ver {@link MotorHash}).
+ */
 @Configuration
 public class SeguridadConfig {
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    public MotorHash passwordEncoder(@Value("${hash.algoritmo:bcrypt}") String algoritmo,
+                                     @Value("${hash.bcrypt.costo:12}") int costoBcrypt,
+                                     @Value("${hash.objetivo-ms:250}") long objetivoMs,
+                                     @Value("${hash.argon2.memoria-kb:19456}") int memoriaArgon2Kb,
+                                     @Value("${hash.argon2.iteraciones:2}") int iteracionesArgon2,
+                                     @Value("${hash.argon2.paralelismo:1}") int paralelismoArgon2) {
+        int costo = costoBcrypt > 0 ? costoBcrypt : CalibradorHash.elegirCostoBcrypt(objetivoMs);
+        return new MotorHash(algoritmo, costo, memoriaArgon2Kb, iteracionesArgon2, paralelismoArgon2);
     }
 }
@@ -0,0 +1,159 @@
+package com.tienda.app.utility;
+
+import com.tienda.app.model.Carrito;
+import com.tienda.app.model.CarritoItem;
+import com.tienda.app.model.PrecioVigente;
+import com.tienda.app.model.UsuarioSesion;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Serializador binario compacto de sesiones para {@link AlmacenSesiones}.
+ *
+ * En lugar de la serialización de Java (que escribe nombres de clase y
+ * descriptores en cada sesión), cada atributo se escribe como nombre + una
+ * etiqueta de un byte + sus campos con {@link DataOutputStream}. Solo admite
+ * los tipos que la aplicación guarda en sesión:
+ * - String, Integer, Long, Boolean.
+ * - {@link Carrito}: por línea, id, nombre, precio en céntimos, cantidad y versión del precio.
+ * - {@link UsuarioSesion}: id, email, rol y si el perfil está completo.
+ *
+ * Guardar en sesión otro tipo produce un {@link IllegalArgumentException} al
+ * serializar, para que no se pierda en silencio.
+ */
+public class SerializadorSesion {
+
+    private static final byte VERSION = 3;
+
+    private static final byte TEXTO = 0;
+    private static final byte ENTERO = 1;
+    private static final byte LARGO = 2;
+    private static final byte BOOLEANO = 3;
+    private static final byte CARRITO = 4;
+    private static final byte USUARIO = 5;
+
+    /**
+     * Datos de una sesión: marcas de tiempo, tiempo de inactividad y atributos.
+     */
+    public record DatosSesion(long creada, long ultimoAcceso, int maxInactivoSegundos,
+                              Map<String, Object> atributos) {}
+
+    public byte[] serializar(DatosSesion sesion) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(sesion.creada());
+            out.writeLong(sesion.ultimoAcceso());
+            out.writeInt(sesion.maxInactivoSegundos());
+            out.writeShort(sesion.atributos().size());
+            for (Map.Entry<String, Object> atributo : sesion.atributos().entrySet()) {
+                out.writeUTF(atributo.getKey());
+                escribirValor(out, atributo.getKey(), atributo.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public DatosSesion deserializar(byte[] datos) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(datos))) {
+            if (in.readByte() != VERSION) {
+                throw new IllegalArgumentException("Versión de sesión desconocida");
+            }
+            long creada = in.readLong();
+            long ultimoAcceso = in.readLong();
+            int maxInactivo = in.readInt();
+            int cantidad = in.readUnsignedShort();
+            Map<String, Object> atributos = new LinkedHashMap<>(cantidad * 2);
+            for (int i = 0; i < cantidad; i++) {
+                String nombre = in.readUTF();
+                atributos.put(nombre, leerValor(in));
+            }
+            return new DatosSesion(creada, ultimoAcceso, maxInactivo, atributos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void escribirValor(DataOutputStream out, String nombre, Object valor) throws IOException {
+        switch (valor) {
+            case String texto -> {
+                out.writeByte(TEXTO);
+                out.writeUTF(texto);
+            }
+            case Integer entero -> {
+                out.writeByte(ENTERO);
+                out.writeInt(entero);
+            }
+            case Long largo -> {
+                out.writeByte(LARGO);
+                out.writeLong(largo);
+            }
+            case Boolean booleano -> {
+                out.writeByte(BOOLEANO);
+                out.writeBoolean(booleano);
+            }
+            case Carrito carrito -> {
+                out.writeByte(CARRITO);
+                out.writeShort(carrito.getItems().size());
+                for (CarritoItem item : carrito.getItems()) {
+                    out.writeInt(item.getProductoId());
+                    escribirTexto(out, item.getNombre());
+                    out.writeLong(item.getPrecioCentavos());
+                    out.writeInt(item.getCantidad());
+                    out.writeLong(item.getVersionPrecio());
+                }
+            }
+            case UsuarioSesion usuario -> {
+                out.writeByte(USUARIO);
+                out.writeInt(usuario.getId());
+                escribirTexto(out, usuario.getEmail());
+                escribirTexto(out, usuario.getRole());
+                out.writeBoolean(usuario.isPerfilCompleto());
+            }
+            default -> throw new IllegalArgumentException(
+                    "Tipo no admitido en la sesión externa: " + nombre + " = " + valor.getClass().getName());
+        }
+    }
+
+    private static Object leerValor(DataInputStream in) throws IOException {
+        byte etiqueta = in.readByte();
+        return switch (etiqueta) {
+            case TEXTO -> in.readUTF();
+            case ENTERO -> in.readInt();
+            case LARGO -> in.readLong();
+            case BOOLEANO -> in.readBoolean();
+            case CARRITO -> {
+                Carrito carrito = new Carrito();
+                int lineas = in.readUnsignedShort();
+                for (int i = 0; i < lineas; i++) {
+                    int productoId = in.readInt();
+                    String nombre = leerTexto(in);
+                    long precioCentavos = in.readLong();
+                    int cantidad = in.readInt();
+                    carrito.agregar(new PrecioVigente(productoId, nombre, precioCentavos, in.readLong()), cantidad);
+                }
+                yield carrito;
+            }
+            case USUARIO -> new UsuarioSesion(in.readInt(), leerTexto(in), leerTexto(in), in.readBoolean());
+            default -> throw new IllegalArgumentException("Etiqueta de atributo desconocida: " + etiqueta);
+        };
+    }
+
+    private static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+        out.writeBoolean(texto != null);
+        if (texto != null) out.writeUTF(texto);
+    }
+
+    private static String leerTexto(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
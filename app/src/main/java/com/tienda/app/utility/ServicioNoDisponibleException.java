@@ -0,0 +1,20 @@
+package com.tienda.app.utility;
+
+/**
+ * Excepción lanzada cuando una operación se rechaza de inmediato para proteger
+ * al resto de la aplicación (circuito abierto, cupo agotado, cola llena, etc.).
+ *
+ * Quien la atrapa debe responder con un resultado degradado en lugar de esperar.
+ */
+public class ServicioNoDisponibleException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ServicioNoDisponibleException(String message) {
+        super(message);
+    }
+
+    public ServicioNoDisponibleException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
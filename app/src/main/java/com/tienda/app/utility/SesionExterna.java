@@ -0,0 +1,148 @@
+package com.tienda.app.utility;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpSession;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link HttpSession} cuyos atributos viven en un {@link AlmacenSesiones} externo.
+ *
+ * Se crea o carga al inicio de cada petición y lleva la cuenta de si algún
+ * atributo cambió (setAttribute / removeAttribute), para que
+ * {@link SesionExternaFilter} solo la vuelva a escribir cuando hace falta.
+ */
+public class SesionExterna implements HttpSession {
+
+    private String id;
+    private final long creada;
+    private final long ultimoAcceso;
+    private final ServletContext contexto;
+    private final Map<String, Object> atributos;
+    private final boolean nueva;
+
+    private int maxInactivoSegundos;
+    private boolean modificada;
+    private boolean invalidada;
+
+    SesionExterna(String id, SerializadorSesion.DatosSesion datos, ServletContext contexto, boolean nueva) {
+        this.id = id;
+        this.creada = datos.creada();
+        this.ultimoAcceso = datos.ultimoAcceso();
+        this.maxInactivoSegundos = datos.maxInactivoSegundos();
+        this.atributos = new LinkedHashMap<>(datos.atributos());
+        this.contexto = contexto;
+        this.nueva = nueva;
+        this.modificada = nueva;
+    }
+
+    @Override
+    public long getCreationTime() {
+        verificarValida();
+        return creada;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public long getLastAccessedTime() {
+        verificarValida();
+        return ultimoAcceso;
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return contexto;
+    }
+
+    @Override
+    public void setMaxInactiveInterval(int intervalo) {
+        if (intervalo != maxInactivoSegundos) modificada = true;
+        maxInactivoSegundos = intervalo;
+    }
+
+    @Override
+    public int getMaxInactiveInterval() {
+        return maxInactivoSegundos;
+    }
+
+    @Override
+    public Object getAttribute(String nombre) {
+        verificarValida();
+        return atributos.get(nombre);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        verificarValida();
+        return Collections.enumeration(atributos.keySet());
+    }
+
+    @Override
+    public void setAttribute(String nombre, Object valor) {
+        verificarValida();
+        if (valor == null) {
+            removeAttribute(nombre);
+            return;
+        }
+        atributos.put(nombre, valor);
+        modificada = true;
+    }
+
+    @Override
+    public void removeAttribute(String nombre) {
+        verificarValida();
+        if (atributos.remove(nombre) != null) modificada = true;
+    }
+
+    @Override
+    public void invalidate() {
+        verificarValida();
+        invalidada = true;
+    }
+
+    @Override
+    public boolean isNew() {
+        verificarValida();
+        return nueva;
+    }
+
+    /**
+     * Cambia el id (rotación al iniciar sesión); los atributos se conservan y la
+     * sesión queda marcada para escribirse con el id nuevo.
+     */
+    void cambiarId(String nuevoId) {
+        verificarValida();
+        id = nuevoId;
+        modificada = true;
+    }
+
+    boolean isModificada() {
+        return modificada;
+    }
+
+    boolean isInvalidada() {
+        return invalidada;
+    }
+
+    /**
+     * Datos a guardar, con el acceso actual como último acceso.
+     */
+    SerializadorSesion.DatosSesion datos(long ahora) {
+        return new SerializadorSesion.DatosSesion(creada, ahora, maxInactivoSegundos, atributos);
+    }
+
+    long ultimoAccesoGuardado() {
+        return ultimoAcceso;
+    }
+
+    private void verificarValida() {
+        if (invalidada) throw new IllegalStateException("La sesión " + id + " fue invalidada");
+    }
+}
@@ -0,0 +1,221 @@
+package com.tienda.app.utility;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Filtro que reemplaza la sesión en memoria de Tomcat por una {@link SesionExterna}
+ * guardada en un {@link AlmacenSesiones}, para poder correr varias instancias
+ * detrás de un balanceador sin sesiones "pegajosas".
+ *
+ * Por petición:
+ * 1. Si llega la cookie de sesión, se leen y deserializan sus bytes.
+ * 2. Los controladores usan la sesión como siempre (request.getSession()).
+ * 3. Al terminar, la sesión solo se vuelve a escribir si cambió algún atributo
+ *    y los bytes resultantes son distintos de los leídos, o si ya pasó la mitad
+ *    de su tiempo de inactividad (para renovar su vencimiento). Una sesión
+ *    invalidada se borra del almacén.
+ *
+ * {@link HttpServletRequest#changeSessionId()} (defensa contra fijación de sesión
+ * al iniciar sesión) guarda la sesión bajo un id nuevo, borra la entrada del id
+ * viejo y reescribe la cookie.
+ *
+ * Cada petición deserializa su propia copia de la sesión: dos peticiones
+ * simultáneas del mismo usuario no comparten objetos, y la última en terminar
+ * reemplaza lo que escribió la otra.
+ *
+ * Se activa con la propiedad sesiones.almacen (ver {@link SesionesConfig}).
+ */
+public class SesionExternaFilter extends OncePerRequestFilter {
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+
+    private final AlmacenSesiones almacen;
+    private final SerializadorSesion serializador;
+    private final String cookie;
+    private final boolean cookieSegura;
+    private final int maxInactivoSegundos;
+
+    private final AtomicLong escrituras = new AtomicLong();
+    private final AtomicLong escriturasOmitidas = new AtomicLong();
+
+    public SesionExternaFilter(AlmacenSesiones almacen, SerializadorSesion serializador, String cookie,
+                               boolean cookieSegura, int maxInactivoSegundos) {
+        this.almacen = almacen;
+        this.serializador = serializador;
+        this.cookie = cookie;
+        this.cookieSegura = cookieSegura;
+        this.maxInactivoSegundos = maxInactivoSegundos;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Peticion peticion = new Peticion(request, response);
+        try {
+            chain.doFilter(peticion, response);
+        } finally {
+            peticion.guardar();
+        }
+    }
+
+    /**
+     * Escrituras hechas y omitidas (sesión sin cambios).
+     */
+    public Map<String, Long> estadisticas() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("sesiones.escrituras", escrituras.get());
+        stats.put("sesiones.escriturasOmitidas", escriturasOmitidas.get());
+        return stats;
+    }
+
+    private static String nuevoId() {
+        byte[] bytes = new byte[24];
+        ALEATORIO.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Petición cuya sesión es una {@link SesionExterna}, creada o cargada al primer uso.
+     */
+    private final class Peticion extends HttpServletRequestWrapper {
+
+        private final HttpServletResponse response;
+        private final List<SesionExterna> invalidadas = new ArrayList<>();
+        /** Ids abandonados por {@link #changeSessionId()}, a borrar del almacén al terminar. */
+        private final List<String> idsReemplazados = new ArrayList<>();
+        private SesionExterna sesion;
+        private byte[] original;
+        private boolean cargada;
+
+        Peticion(HttpServletRequest request, HttpServletResponse response) {
+            super(request);
+            this.response = response;
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+
+        @Override
+        public HttpSession getSession(boolean crear) {
+            if (!cargada) {
+                cargada = true;
+                cargar();
+            }
+            if (sesion != null && sesion.isInvalidada()) {
+                invalidadas.add(sesion);
+                sesion = null;
+                original = null;
+            }
+            if (sesion == null && crear) {
+                long ahora = System.currentTimeMillis();
+                sesion = new SesionExterna(nuevoId(),
+                        new SerializadorSesion.DatosSesion(ahora, ahora, maxInactivoSegundos, Map.of()),
+                        getServletContext(), true);
+                escribirCookie(sesion.getId(), Duration.ofSeconds(-1));
+            }
+            return sesion;
+        }
+
+        @Override
+        public String changeSessionId() {
+            SesionExterna actual = (SesionExterna) getSession(false);
+            if (actual == null) throw new IllegalStateException("No hay sesión para cambiarle el id");
+            idsReemplazados.add(actual.getId());
+            actual.cambiarId(nuevoId());
+            original = null;
+            escribirCookie(actual.getId(), Duration.ofSeconds(-1));
+            return actual.getId();
+        }
+
+        private void cargar() {
+            String id = idDeCookie();
+            if (id == null) return;
+            byte[] datos = almacen.leer(id);
+            if (datos == null) return;
+            try {
+                sesion = new SesionExterna(id, serializador.deserializar(datos), getServletContext(), false);
+                original = datos;
+            } catch (RuntimeException e) {
+                // formato viejo o dañado: se empieza una sesión nueva
+                almacen.eliminar(id);
+            }
+        }
+
+        private String idDeCookie() {
+            Cookie[] cookies = getCookies();
+            if (cookies == null) return null;
+            for (Cookie c : cookies) {
+                if (cookie.equals(c.getName())) return c.getValue();
+            }
+            return null;
+        }
+
+        private void escribirCookie(String valor, Duration maxAge) {
+            if (response.isCommitted()) return;
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(cookie, valor)
+                    .path("/")
+                    .httpOnly(true)
+                    .secure(cookieSegura)
+                    .sameSite("Lax")
+                    .maxAge(maxAge)
+                    .build()
+                    .toString());
+        }
+
+        void guardar() {
+            for (String id : idsReemplazados) {
+                almacen.eliminar(id);
+            }
+            for (SesionExterna invalidada : invalidadas) {
+                almacen.eliminar(invalidada.getId());
+            }
+            if (sesion == null) {
+                if (!invalidadas.isEmpty()) escribirCookie("", Duration.ZERO);
+                return;
+            }
+            if (sesion.isInvalidada()) {
+                almacen.eliminar(sesion.getId());
+                escribirCookie("", Duration.ZERO);
+                return;
+            }
+
+            long ahora = System.currentTimeMillis();
+            Duration ttl = Duration.ofSeconds(sesion.getMaxInactiveInterval());
+            boolean renovar = ahora - sesion.ultimoAccesoGuardado() > ttl.toMillis() / 2;
+            if (!sesion.isModificada() && !renovar) {
+                escriturasOmitidas.incrementAndGet();
+                return;
+            }
+
+            byte[] datos = serializador.serializar(sesion.datos(renovar ? ahora : sesion.ultimoAccesoGuardado()));
+            if (!renovar && Arrays.equals(datos, original)) {
+                escriturasOmitidas.incrementAndGet();
+                return;
+            }
+            almacen.guardar(sesion.getId(), datos, ttl);
+            escrituras.incrementAndGet();
+        }
+    }
+}
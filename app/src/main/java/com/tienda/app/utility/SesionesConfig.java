@@ -0,0 +1,60 @@
+package com.tienda.app.utility;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Activa las sesiones externas ({@link SesionExternaFilter}) cuando se define
+ * la propiedad sesiones.almacen:
+ * - archivo → {@link AlmacenSesionesArchivo} en sesiones.directorio.
+ * - kv → {@link AlmacenSesionesKv} sobre el bean {@link ClienteKv}. Por ahora es
+ *   {@link ClienteKvLocal}; para un servidor real se cambia por una implementación
+ *   de ClienteKv sobre su cliente.
+ *
+ * Sin la propiedad se siguen usando las sesiones en memoria de Tomcat.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sesiones.almacen")
+public class SesionesConfig {
+
+    @Bean
+    public ClienteKv clienteKv() {
+        return new ClienteKvLocal();
+    }
+
+    @Bean
+    public AlmacenSesiones almacenSesiones(@Value("${sesiones.almacen}") String tipo,
+                                           @Value("${sesiones.directorio:data/sesiones}") String directorio,
+                                           @Value("${sesiones.kv.prefijo:sesion:}") String prefijo,
+                                           ClienteKv clienteKv) {
+        return switch (tipo) {
+            case "archivo" -> new AlmacenSesionesArchivo(Path.of(directorio));
+            case "kv" -> new AlmacenSesionesKv(clienteKv, prefijo);
+            default -> throw new IllegalArgumentException("sesiones.almacen desconocido: " + tipo);
+        };
+    }
+
+    @Bean
+    public SesionExternaFilter sesionExternaFilter(AlmacenSesiones almacenSesiones,
+                                                   @Value("${sesiones.cookie:SESION}") String cookie,
+                                                   @Value("${sesiones.cookie-segura:false}") boolean cookieSegura,
+                                                   @Value("${server.servlet.session.timeout:30m}") Duration timeout) {
+        return new SesionExternaFilter(almacenSesiones, new SerializadorSesion(), cookie, cookieSegura,
+                (int) timeout.toSeconds());
+    }
+
+    @Bean
+    public FilterRegistrationBean<SesionExternaFilter> registroSesionExterna(SesionExternaFilter filtro) {
+        FilterRegistrationBean<SesionExternaFilter> registro = new FilterRegistrationBean<>(filtro);
+        // antes que cualquier filtro que pueda tocar la sesión
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registro;
+    }
+}
@@ -0,0 +1,105 @@
+package com.tienda.app.utility;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa ("single-flight") cargas concurrentes de una misma clave.
+ *
+ * Si llega una carga para una clave que ya se está cargando, no se lanza otra:
+ * el llamador espera a la que está en curso y recibe el mismo resultado (o la
+ * misma excepción). Una vez terminada, la siguiente carga vuelve a ejecutarse.
+ *
+ * Los que se unen esperan como mucho {@code esperaMaxima}; si la carga en curso
+ * tarda más reciben {@link ServicioNoDisponibleException}, así un líder lento no
+ * retiene indefinidamente los hilos que se le unieron (y que no ocupan cupo en
+ * ningún bulkhead).
+ *
+ * @param <K> tipo de la clave.
+ * @param <V> tipo del resultado.
+ */
+public class SingleFlight<K, V> {
+
+    private final String nombre;
+    private final long esperaMaximaNanos;
+    private final Map<K, CompletableFuture<V>> enCurso = new ConcurrentHashMap<>();
+
+    private final AtomicLong ejecuciones = new AtomicLong();
+    private final AtomicLong agrupadas = new AtomicLong();
+    private final AtomicLong esperasVencidas = new AtomicLong();
+
+    /**
+     * @param nombre prefijo de métricas.
+     * @param esperaMaxima cuánto espera como mucho quien se une a una carga en curso.
+     */
+    public SingleFlight(String nombre, Duration esperaMaxima) {
+        this.nombre = nombre;
+        this.esperaMaximaNanos = esperaMaxima.toNanos();
+    }
+
+    /**
+     * Ejecuta la carga para la clave o se une a la que ya está en curso.
+     *
+     * @param clave clave de la carga.
+     * @param carga función que obtiene el valor.
+     * @return el valor cargado (compartido entre todos los llamadores concurrentes).
+     * @throws ServicioNoDisponibleException si se unió a una carga que no terminó a tiempo.
+     */
+    public V ejecutar(K clave, Supplier<V> carga) {
+        CompletableFuture<V> propia = new CompletableFuture<>();
+        CompletableFuture<V> existente = enCurso.putIfAbsent(clave, propia);
+        if (existente != null) {
+            agrupadas.incrementAndGet();
+            return esperar(existente);
+        }
+
+        ejecuciones.incrementAndGet();
+        try {
+            V valor = carga.get();
+            propia.complete(valor);
+            return valor;
+        } catch (Throwable e) {
+            // también los Error: quienes se unieron no deben quedar esperando un futuro sin completar
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(clave, propia);
+        }
+    }
+
+    /**
+     * Contadores: cargas realmente ejecutadas y llamadas que se unieron a una en curso.
+     */
+    public Map<String, Long> estadisticas() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put(nombre + ".ejecuciones", ejecuciones.get());
+        stats.put(nombre + ".agrupadas", agrupadas.get());
+        stats.put(nombre + ".esperasVencidas", esperasVencidas.get());
+        stats.put(nombre + ".enCurso", (long) enCurso.size());
+        return stats;
+    }
+
+    private V esperar(CompletableFuture<V> futuro) {
+        try {
+            return futuro.get(esperaMaximaNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) throw causa;
+            if (e.getCause() instanceof Error causa) throw causa;
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            esperasVencidas.incrementAndGet();
+            throw new ServicioNoDisponibleException("Carga " + nombre + " en curso demasiado lenta");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServicioNoDisponibleException("Espera interrumpida de la carga " + nombre);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.tienda.app.utility;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Stock de un producto repartido en varias franjas (sub-contadores) en memoria.
+ *
+ * Cada compra elige una franja al azar y descuenta con CAS solo sobre ella, de
+ * modo que compradores simultáneos del mismo producto rara vez compiten por el
+ * mismo contador. Si la franja elegida no alcanza se prueban las demás y, como
+ * último recurso, se junta la cantidad tomando de varias franjas (rebalanceo).
+ *
+ * Nunca se vende de más: cada unidad se quita de una franja de forma atómica y,
+ * si al final no se reunió la cantidad, lo tomado se devuelve. Mientras dura esa
+ * devolución otro comprador puede ver momentáneamente menos stock del real.
+ */
+public class StockRayado {
+
+    /**
+     * Separación entre franjas dentro del arreglo (16 ints = 64 bytes), para que
+     * cada franja quede en su propia línea de caché y no haya falso compartido.
+     */
+    private static final int SEPARACION = 16;
+
+    private final int franjas;
+    private final AtomicIntegerArray contadores;
+
+    /**
+     * @param stockInicial stock total a repartir.
+     * @param franjas número de franjas (sub-contadores).
+     */
+    public StockRayado(int stockInicial, int franjas) {
+        this.franjas = franjas;
+        this.contadores = new AtomicIntegerArray(franjas * SEPARACION);
+        for (int i = 0; i < franjas; i++) {
+            contadores.set(i * SEPARACION, stockInicial / franjas + (i < stockInicial % franjas ? 1 : 0));
+        }
+    }
+
+    /**
+     * Descuenta unidades si hay stock suficiente.
+     *
+     * @param cantidad unidades a descontar.
+     * @return true si se descontó, false si no alcanza.
+     */
+    public boolean descontar(int cantidad) {
+        int inicio = ThreadLocalRandom.current().nextInt(franjas);
+        for (int k = 0; k < franjas; k++) {
+            if (tomar((inicio + k) % franjas, cantidad)) return true;
+        }
+        return tomarRepartido(inicio, cantidad);
+    }
+
+    /**
+     * Devuelve unidades al stock (por ejemplo, una reserva cancelada).
+     */
+    public void devolver(int cantidad) {
+        contadores.addAndGet(ThreadLocalRandom.current().nextInt(franjas) * SEPARACION, cantidad);
+    }
+
+    /**
+     * Quita hasta {@code cantidad} unidades, las que haya (por ejemplo, cuando el
+     * stock se redujo por fuera de la aplicación).
+     *
+     * @return unidades efectivamente quitadas.
+     */
+    public int retirar(int cantidad) {
+        int faltante = cantidad;
+        for (int k = 0; k < franjas && faltante > 0; k++) {
+            int indice = k * SEPARACION;
+            while (true) {
+                int actual = contadores.get(indice);
+                int tomado = Math.min(actual, faltante);
+                if (tomado == 0) break;
+                if (contadores.compareAndSet(indice, actual, actual - tomado)) {
+                    faltante -= tomado;
+                    break;
+                }
+            }
+        }
+        return cantidad - faltante;
+    }
+
+    /**
+     * Stock total disponible (suma de las franjas; aproximado bajo concurrencia).
+     */
+    public int disponible() {
+        int total = 0;
+        for (int i = 0; i < franjas; i++) {
+            total += contadores.get(i * SEPARACION);
+        }
+        return total;
+    }
+
+    /**
+     * Toma la cantidad completa de una sola franja, o nada.
+     */
+    private boolean tomar(int franja, int cantidad) {
+        int indice = franja * SEPARACION;
+        while (true) {
+            int actual = contadores.get(indice);
+            if (actual < cantidad) return false;
+            if (contadores.compareAndSet(indice, actual, actual - cantidad)) return true;
+        }
+    }
+
+    /**
+     * Junta la cantidad tomando lo que haya en cada franja; si no alcanza, devuelve lo tomado.
+     */
+    private boolean tomarRepartido(int inicio, int cantidad) {
+        int faltante = cantidad;
+        for (int k = 0; k < franjas && faltante > 0; k++) {
+            int indice = ((inicio + k) % franjas) * SEPARACION;
+            while (true) {
+                int actual = contadores.get(indice);
+                int tomado = Math.min(actual, faltante);
+                if (tomado == 0) break;
+                if (contadores.compareAndSet(indice, actual, actual - tomado)) {
+                    faltante -= tomado;
+                    break;
+                }
+            }
+        }
+        if (faltante == 0) return true;
+        devolver(cantidad - faltante);
+        return false;
+    }
+}
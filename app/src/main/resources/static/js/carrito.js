@@ -0,0 +1,42 @@
+// Actualizar y eliminar líneas del carrito sin recargar la página:
+// se usa la API JSON (/api/carrito) y solo se reemplazan la fila y el total.
+// Si el navegador no tiene JavaScript, los formularios siguen funcionando como antes.
+document.addEventListener("DOMContentLoaded", () => {
+    const total = document.getElementById("carrito-total");
+
+    document.querySelectorAll("form[action$='/carrito/actualizar'], form[action$='/carrito/eliminar']")
+        .forEach((form) => {
+            form.addEventListener("submit", async (e) => {
+                e.preventDefault();
+                const datos = new FormData(form);
+                const eliminar = form.action.endsWith("/eliminar");
+                const cambio = {
+                    operacion: eliminar ? "eliminar" : "actualizar",
+                    productoId: Number(datos.get("id")),
+                    cantidad: eliminar ? 0 : Number(datos.get("cantidad"))
+                };
+
+                const respuesta = await fetch("/api/carrito", {
+                    method: "POST",
+                    headers: {"Content-Type": "application/json"},
+                    body: JSON.stringify(cambio)
+                });
+                if (!respuesta.ok) {
+                    form.submit(); // ante cualquier error, se usa el flujo normal
+                    return;
+                }
+
+                const carrito = await respuesta.json();
+                carrito.lineas.forEach((linea) => {
+                    const fila = document.querySelector(`tr[data-producto='${linea.productoId}']`);
+                    if (!fila) return;
+                    if (linea.cantidad === 0) {
+                        fila.remove();
+                    } else {
+                        fila.querySelector(".subtotal").textContent = linea.subtotal;
+                    }
+                });
+                total.textContent = carrito.total;
+            });
+        });
+});
@@ -0,0 +1,145 @@
+package com.tienda.app.controller;
+
+import com.tienda.app.model.CambioCarrito;
+import com.tienda.app.model.Carrito;
+import com.tienda.app.model.CarritoItem;
+import com.tienda.app.model.PrecioVigente;
+import com.tienda.app.model.RespuestaCarrito;
+import com.tienda.app.model.UsuarioSesion;
+import com.tienda.app.service.CarritoPersistenteService;
+import com.tienda.app.service.PreciosService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prueba los endpoints de la API del carrito sobre una sesión simulada.
+ */
+class CarritoApiControllerTest {
+
+    private final PreciosService preciosService = mock(PreciosService.class);
+    private final CarritoPersistenteService persistente = mock(CarritoPersistenteService.class);
+    private final CarritoApiController controller = new CarritoApiController(preciosService, persistente);
+    private final MockHttpSession session = new MockHttpSession();
+
+    {
+        when(preciosService.resolver(anyInt())).thenReturn(Optional.empty());
+        when(preciosService.resolver(1)).thenReturn(Optional.of(new PrecioVigente(1, "Polera", 999_000, 1)));
+        when(preciosService.resolver(2)).thenReturn(Optional.of(new PrecioVigente(2, "Gorra", 450_000, 1)));
+    }
+
+    @Test
+    void agregarRespondeSoloLaLineaAfectadaYElTotal() {
+        controller.aplicar(new CambioCarrito("agregar", 2, 1), session);
+
+        RespuestaCarrito respuesta = controller.aplicar(new CambioCarrito("agregar", 1, 2), session);
+
+        assertEquals(1, respuesta.lineas().size());
+        assertEquals("Polera", respuesta.lineas().get(0).nombre());
+        assertEquals(2, respuesta.lineas().get(0).cantidad());
+        assertEquals(new BigDecimal("24480.00"), respuesta.total());
+        assertEquals(2, respuesta.cantidadLineas());
+        assertEquals(2, controller.ver(session).lineas().size());
+    }
+
+    @Test
+    void loteAplicaLosCambiosEnOrden() {
+        RespuestaCarrito respuesta = controller.aplicarLote(List.of(
+                new CambioCarrito("agregar", 1, null),
+                new CambioCarrito("agregar", 2, 3),
+                new CambioCarrito("actualizar", 1, 4),
+                new CambioCarrito("eliminar", 2, null)), session);
+
+        assertEquals(2, respuesta.lineas().size());
+        assertEquals(4, respuesta.lineas().get(0).cantidad());
+        assertEquals(0, respuesta.lineas().get(1).cantidad());
+        assertEquals(new BigDecimal("39960.00"), respuesta.total());
+        assertEquals(1, respuesta.cantidadLineas());
+    }
+
+    @Test
+    void unCambioInvalidoNoAplicaNingunoDelLote() {
+        controller.aplicar(new CambioCarrito("agregar", 1, 1), session);
+
+        ResponseStatusException noExiste = assertThrows(ResponseStatusException.class, () ->
+                controller.aplicarLote(List.of(
+                        new CambioCarrito("agregar", 2, 1),
+                        new CambioCarrito("eliminar", 1, null),
+                        new CambioCarrito("agregar", 99, 1)), session));
+        assertEquals(HttpStatus.NOT_FOUND, noExiste.getStatusCode());
+
+        ResponseStatusException invalido = assertThrows(ResponseStatusException.class, () ->
+                controller.aplicarLote(List.of(
+                        new CambioCarrito("eliminar", 1, null),
+                        new CambioCarrito("agregar", 2, 0)), session));
+        assertEquals(HttpStatus.BAD_REQUEST, invalido.getStatusCode());
+
+        ResponseStatusException desconocida = assertThrows(ResponseStatusException.class, () ->
+                controller.aplicarLote(List.of(
+                        new CambioCarrito("eliminar", 1, null),
+                        new CambioCarrito("vaciar", 1, null)), session));
+        assertEquals(HttpStatus.BAD_REQUEST, desconocida.getStatusCode());
+
+        // el carrito quedó como estaba
+        Carrito carrito = (Carrito) session.getAttribute("carrito");
+        assertEquals(1, carrito.getItems().size());
+        assertEquals(1, carrito.getItem(1).getCantidad());
+    }
+
+    @Test
+    void rechazaLotesVaciosOMayoresAlLimite() {
+        List<CambioCarrito> cien = new ArrayList<>(Collections.nCopies(100, new CambioCarrito("agregar", 1, 1)));
+        assertEquals(100, controller.aplicarLote(cien, session).lineas().get(0).cantidad());
+
+        cien.add(new CambioCarrito("agregar", 1, 1));
+        ResponseStatusException excedido = assertThrows(ResponseStatusException.class,
+                () -> controller.aplicarLote(cien, session));
+        assertEquals(HttpStatus.BAD_REQUEST, excedido.getStatusCode());
+
+        ResponseStatusException vacio = assertThrows(ResponseStatusException.class,
+                () -> controller.aplicarLote(List.of(), session));
+        assertEquals(HttpStatus.BAD_REQUEST, vacio.getStatusCode());
+    }
+
+    @Test
+    void conSesionIniciadaRegistraLasLineasYVaciaElGuardado() {
+        session.setAttribute("usuarioLog", new UsuarioSesion(7, "ana@correo.com", "USER", true));
+
+        controller.aplicarLote(List.of(
+                new CambioCarrito("agregar", 1, 1),
+                new CambioCarrito("agregar", 1, 1)), session);
+        verify(persistente).registrar(eq(7), eq(1), any(CarritoItem.class));
+
+        RespuestaCarrito respuesta = controller.vaciar(session);
+        assertEquals(0, respuesta.cantidadLineas());
+        assertNull(session.getAttribute("carrito"));
+        verify(persistente).vaciar(7);
+    }
+
+    @Test
+    void sinSesionIniciadaNoPersiste() {
+        controller.aplicar(new CambioCarrito("agregar", 1, 1), session);
+        controller.vaciar(session);
+
+        verify(persistente, never()).registrar(any(), any(), any());
+        verify(persistente, never()).vaciar(any());
+    }
+}
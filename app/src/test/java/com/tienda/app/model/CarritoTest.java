@@ -0,0 +1,34 @@
+package com.tienda.app.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba que el total del carrito se mantenga al día con cada cambio.
+ */
+class CarritoTest {
+
+    @Test
+    void elTotalSigueLasOperaciones() {
+        Carrito carrito = new Carrito();
+        carrito.agregar(1, "Polera", new BigDecimal("9990.50"), 1);
+        carrito.agregar(2, "Gorra", new BigDecimal("4500"), 2);
+        carrito.agregar(1, "Polera", new BigDecimal("9990.50"), 1);
+        assertEquals(new BigDecimal("28981.00"), carrito.getTotal());
+
+        carrito.actualizarCantidad(2, 1);
+        assertEquals(2_448_100L, carrito.getTotalCentavos());
+
+        carrito.actualizarCantidad(1, 0);
+        assertEquals(new BigDecimal("4500.00"), carrito.getTotal());
+        assertEquals(1, carrito.getItems().size());
+
+        carrito.eliminar(2);
+        assertTrue(carrito.isEmpty());
+        assertEquals(0L, carrito.getTotalCentavos());
+    }
+}
@@ -0,0 +1,154 @@
+package com.tienda.app.service;
+
+import com.tienda.app.model.CarritoItem;
+import com.tienda.app.model.ResultadoReserva;
+import com.tienda.app.repository.ArticuloRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prueba la reserva y liberación de stock en lote, incluido el inventario rayado
+ * (producto 7) y la devolución de sus unidades cuando la transacción se revierte.
+ */
+class ArticuloServiceReservaTest {
+
+    private static final int RAYADO = 7;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final JdbcTemplate jdbcRayado = mock(JdbcTemplate.class);
+    private final InventarioRayadoService inventarioRayado = new InventarioRayadoService(jdbcRayado, "7", 4);
+    private final ArticuloService service = new ArticuloService(mock(ArticuloRepository.class), jdbcTemplate,
+            inventarioRayado, 100, 300);
+
+    {
+        when(jdbcRayado.queryForObject(anyString(), eq(Integer.class), eq(RAYADO))).thenReturn(5);
+    }
+
+    @AfterEach
+    void cerrar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        service.cerrar();
+    }
+
+    @Test
+    void reservaAgrupaPorProductoEnUnSoloLoteOrdenado() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1});
+
+        ResultadoReserva resultado = service.reservarStock(List.of(linea(3, 2), linea(1, 1), linea(3, 1)));
+
+        assertTrue(resultado.exitosa());
+        List<Object[]> lote = loteEnviado();
+        assertEquals(2, lote.size());
+        assertArrayEquals(new Object[]{1, 1, 1}, lote.get(0));
+        assertArrayEquals(new Object[]{3, 3, 3}, lote.get(1));
+    }
+
+    @Test
+    void sinStockMarcaRollbackYDevuelveElRayado() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 0});
+        TransactionStatus estado = mock(TransactionStatus.class);
+        CarritoItem agotada = linea(3, 4);
+
+        ResultadoReserva resultado;
+        try (MockedStatic<TransactionAspectSupport> soporte = mockStatic(TransactionAspectSupport.class)) {
+            soporte.when(TransactionAspectSupport::currentTransactionStatus).thenReturn(estado);
+            resultado = service.reservarStock(List.of(linea(1, 1), agotada, linea(RAYADO, 2)));
+        }
+
+        assertFalse(resultado.exitosa());
+        assertEquals(List.of(agotada), resultado.fallidas());
+        verify(estado).setRollbackOnly();
+        // sin transacción sincronizada el rayado se devuelve en el acto
+        assertEquals(5, inventarioRayado.disponible(RAYADO));
+    }
+
+    @Test
+    void rayadoSinStockNoEnviaElLote() {
+        TransactionStatus estado = mock(TransactionStatus.class);
+
+        ResultadoReserva resultado;
+        try (MockedStatic<TransactionAspectSupport> soporte = mockStatic(TransactionAspectSupport.class)) {
+            soporte.when(TransactionAspectSupport::currentTransactionStatus).thenReturn(estado);
+            resultado = service.reservarStock(List.of(linea(1, 1), linea(RAYADO, 6)));
+        }
+
+        assertEquals(1, resultado.fallidas().size());
+        verify(estado).setRollbackOnly();
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void rayadoSeDevuelveSiLaTransaccionSeRevierte() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertTrue(service.reservarStock(List.of(linea(1, 1), linea(RAYADO, 2))).exitosa());
+        assertEquals(3, inventarioRayado.disponible(RAYADO));
+
+        // por ejemplo, el checkout revierte porque el cobro fue rechazado
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertEquals(5, inventarioRayado.disponible(RAYADO));
+    }
+
+    @Test
+    void rayadoQuedaDescontadoSiLaTransaccionConfirma() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.reservarStock(List.of(linea(1, 1), linea(RAYADO, 2)));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertEquals(3, inventarioRayado.disponible(RAYADO));
+    }
+
+    @Test
+    void liberarDevuelveEnLoteYAlRayado() {
+        assertTrue(inventarioRayado.descontar(RAYADO, 2));
+
+        service.liberarStock(List.of(linea(4, 1), linea(2, 3), linea(RAYADO, 2), linea(4, 1)));
+
+        List<Object[]> lote = loteEnviado();
+        assertEquals(2, lote.size());
+        assertArrayEquals(new Object[]{3, 2}, lote.get(0));
+        assertArrayEquals(new Object[]{2, 4}, lote.get(1));
+        assertEquals(5, inventarioRayado.disponible(RAYADO));
+    }
+
+    private List<Object[]> loteEnviado() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> lote = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), lote.capture());
+        return lote.getValue();
+    }
+
+    private static CarritoItem linea(int productoId, int cantidad) {
+        return new CarritoItem(productoId, "Producto " + productoId, BigDecimal.TEN, cantidad);
+    }
+}
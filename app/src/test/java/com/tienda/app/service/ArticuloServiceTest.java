@@ -0,0 +1,137 @@
+package com.tienda.app.service;
+
+import com.tienda.app.model.Articulo;
+import com.tienda.app.model.ArticuloTarjeta;
+import com.tienda.app.repository.ArticuloRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prueba la caché de tarjetas de ArticuloService contando las consultas al repositorio.
+ */
+class ArticuloServiceTest {
+
+    private final ArticuloRepository repository = mock(ArticuloRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ArticuloService service = new ArticuloService(repository, jdbcTemplate,
+            new InventarioRayadoService(mock(JdbcTemplate.class), "", 8), 100, 300);
+
+    @AfterEach
+    void cerrar() {
+        service.cerrar();
+    }
+
+    @Test
+    void productoCalienteNoConsultaLaBaseDeDatos() {
+        when(repository.buscarTarjeta(1)).thenReturn(Optional.of(tarjeta(10)));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Polera", service.buscarTarjeta(1).orElseThrow().name());
+        }
+
+        // solo el primer acceso llega al repositorio
+        verify(repository, times(1)).buscarTarjeta(1);
+        assertEquals(4L, service.estadisticasCache().get("articulos.tarjetas.aciertos"));
+    }
+
+    @Test
+    void actualizarStockInvalidaLaEntrada() {
+        when(repository.descontarStock(1, 2)).thenReturn(1);
+        when(repository.buscarTarjeta(1)).thenReturn(Optional.of(tarjeta(10))).thenReturn(Optional.of(tarjeta(8)));
+
+        service.buscarTarjeta(1);
+        service.actualizarStock(1, 2);
+
+        assertEquals(8, service.buscarTarjeta(1).orElseThrow().stockQuantity());
+        verify(repository, times(2)).buscarTarjeta(1);
+    }
+
+    @Test
+    void dentroDeUnaTransaccionSoloSeInvalidaAlConfirmar() {
+        when(repository.descontarStock(1, 2)).thenReturn(1);
+        when(repository.buscarTarjeta(1)).thenReturn(Optional.of(tarjeta(10))).thenReturn(Optional.of(tarjeta(8)));
+        service.buscarTarjeta(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.actualizarStock(1, 2);
+            // antes del commit una lectura concurrente sigue viendo (y no recarga) el valor confirmado
+            assertEquals(10, service.buscarTarjeta(1).orElseThrow().stockQuantity());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(8, service.buscarTarjeta(1).orElseThrow().stockQuantity());
+    }
+
+    @Test
+    void stockInsuficienteNoInvalidaYFalla() {
+        Articulo articulo = new Articulo();
+        articulo.setName("Polera");
+        when(repository.descontarStock(1, 5)).thenReturn(0);
+        when(repository.findById(1)).thenReturn(Optional.of(articulo));
+        when(repository.buscarTarjeta(1)).thenReturn(Optional.of(tarjeta(3)));
+
+        service.buscarTarjeta(1);
+        RuntimeException e = assertThrows(RuntimeException.class, () -> service.actualizarStock(1, 5));
+
+        assertEquals("Stock insuficiente para el producto: Polera", e.getMessage());
+        service.buscarTarjeta(1);
+        verify(repository, times(1)).buscarTarjeta(1);
+    }
+
+    @Test
+    void elRefrescoInvalidaSoloLosProductosModificados() throws SQLException {
+        LocalDateTime marca = LocalDateTime.of(2026, 1, 1, 10, 0);
+        when(jdbcTemplate.queryForObject(anyString(), eq(LocalDateTime.class))).thenReturn(marca);
+        when(repository.buscarTarjeta(1)).thenReturn(Optional.of(tarjeta(10))).thenReturn(Optional.of(tarjeta(7)));
+        when(repository.buscarTarjeta(2)).thenReturn(Optional.of(tarjeta(5)));
+        service.buscarTarjeta(1);
+        service.buscarTarjeta(2);
+        service.refrescarTarjetas(); // primera pasada: solo fija la marca
+
+        // alguien cambió el producto 1 por fuera de esta instancia
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getInt(1)).thenReturn(1);
+        when(rs.getObject(2, LocalDateTime.class)).thenReturn(marca.plusSeconds(30));
+        doAnswer(invocacion -> {
+            invocacion.<RowCallbackHandler>getArgument(1).processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object.class));
+        service.refrescarTarjetas();
+
+        assertEquals(7, service.buscarTarjeta(1).orElseThrow().stockQuantity());
+        assertEquals(5, service.buscarTarjeta(2).orElseThrow().stockQuantity());
+        verify(repository, times(1)).buscarTarjeta(2);
+        // la siguiente pasada mira desde el último cambio visto (menos el solape)
+        verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(marca.minusSeconds(2)));
+        service.refrescarTarjetas();
+        verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(marca.plusSeconds(28)));
+    }
+
+    private static ArticuloTarjeta tarjeta(int stock) {
+        return new ArticuloTarjeta(1, "Polera", new BigDecimal("9990"), "/img/1.png", stock);
+    }
+}
@@ -0,0 +1,52 @@
+package com.tienda.app.service;
+
+import com.tienda.app.model.BillingMethod;
+import com.tienda.app.repository.BankLedgerRepository;
+import com.tienda.app.repository.BankRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prueba que el cobro se decide por el UPDATE condicional y solo entonces se anota en el libro.
+ */
+class BankServiceTest {
+
+    private final BankRepository bankRepository = mock(BankRepository.class);
+    private final BankLedgerRepository ledgerRepository = mock(BankLedgerRepository.class);
+    private final BankService service = new BankService(bankRepository, ledgerRepository);
+
+    @Test
+    void cobroAplicadoSeAnotaEnElLibro() {
+        BigDecimal monto = new BigDecimal("100.00");
+        when(bankRepository.debitar("345678901234", "visa", (byte) 5, (short) 2028, monto)).thenReturn(1);
+
+        assertTrue(service.ejecutarTransaccion(tarjeta(), monto, "orden-1"));
+        verify(ledgerRepository).registrarDebito("345678901234", monto, "orden-1");
+    }
+
+    @Test
+    void saldoInsuficienteNoEscribeNada() {
+        when(bankRepository.debitar(any(), any(), any(), any(), any())).thenReturn(0);
+
+        assertFalse(service.ejecutarTransaccion(tarjeta(), new BigDecimal("99999.00"), "orden-1"));
+        verify(ledgerRepository, never()).registrarDebito(any(), any(), any());
+    }
+
+    private static BillingMethod tarjeta() {
+        BillingMethod tarjeta = new BillingMethod();
+        tarjeta.setCardNumber("345678901234");
+        tarjeta.setBrand("visa");
+        tarjeta.setExpMonth(5);
+        tarjeta.setExpYear(2028);
+        return tarjeta;
+    }
+}
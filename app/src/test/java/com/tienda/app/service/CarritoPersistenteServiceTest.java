@@ -0,0 +1,136 @@
+package com.tienda.app.service;
+
+import com.tienda.app.model.Carrito;
+import com.tienda.app.model.CarritoItem;
+import com.tienda.app.model.UsuarioSesion;
+import com.tienda.app.repository.CarritoRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prueba que los clics seguidos sobre el carrito terminen en una sola escritura,
+ * la unión del carrito al iniciar sesión y el orden entre flush y vaciado.
+ */
+class CarritoPersistenteServiceTest {
+
+    private final CarritoRepository repository = mock(CarritoRepository.class);
+    private final CarritoPersistenteService service = new CarritoPersistenteService(repository);
+
+    @Test
+    void variosCambiosSeEscribenUnaVezConElEstadoFinal() {
+        Carrito carrito = new Carrito();
+        for (int i = 0; i < 5; i++) {
+            carrito.agregar(1, "Polera", new BigDecimal("9990"), 1);
+            service.registrar(7, 1, carrito.getItem(1));
+        }
+        carrito.agregar(2, "Gorra", new BigDecimal("4500"), 1);
+        service.registrar(7, 2, carrito.getItem(2));
+        carrito.eliminar(2);
+        service.registrar(7, 2, carrito.getItem(2));
+
+        service.escribirPendientes();
+        service.escribirPendientes();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Integer, CarritoItem>> cambios = ArgumentCaptor.forClass(Map.class);
+        verify(repository, times(1)).guardar(eq(7), cambios.capture());
+        assertEquals(5, cambios.getValue().get(1).getCantidad());
+        assertEquals(0, cambios.getValue().get(2).getCantidad());
+    }
+
+    @Test
+    void seEscribeElEstadoRegistradoAunqueLaSesionSigaCambiando() {
+        Carrito carrito = new Carrito();
+        carrito.agregar(1, "Polera", new BigDecimal("9990"), 2);
+        service.registrar(7, 1, carrito.getItem(1));
+        // otro request cambia la línea de la sesión antes de registrar su cambio
+        carrito.agregar(1, "Polera", new BigDecimal("9990"), 3);
+
+        service.escribirPendientes();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Integer, CarritoItem>> cambios = ArgumentCaptor.forClass(Map.class);
+        verify(repository).guardar(eq(7), cambios.capture());
+        assertEquals(2, cambios.getValue().get(1).getCantidad());
+        assertEquals(new BigDecimal("19980.00"), cambios.getValue().get(1).getSubtotal());
+    }
+
+    @Test
+    void volverAIngresarNoDuplicaElCarrito() {
+        UsuarioSesion ana = new UsuarioSesion(7, "ana@correo.com", "USER", true);
+        Carrito anonimo = new Carrito();
+        anonimo.agregar(1, "Polera", new BigDecimal("9990"), 2);
+        when(repository.listar(7)).thenReturn(List.of(new CarritoItem(1, "Polera", new BigDecimal("9990"), 2)));
+
+        Carrito primero = service.alIngresar(7, null, anonimo);
+        Carrito segundo = service.alIngresar(7, ana, primero);
+
+        verify(repository, times(1)).sumar(eq(7), anyList());
+        assertEquals(2, segundo.getItem(1).getCantidad());
+        assertEquals(new BigDecimal("19980.00"), segundo.getTotal());
+    }
+
+    @Test
+    void otroUsuarioNoHeredaElCarritoAnterior() {
+        UsuarioSesion ana = new UsuarioSesion(7, "ana@correo.com", "USER", true);
+        Carrito deAna = new Carrito();
+        deAna.agregar(1, "Polera", new BigDecimal("9990"), 2);
+        when(repository.listar(8)).thenReturn(List.of(new CarritoItem(3, "Gorra", new BigDecimal("4500"), 1)));
+
+        Carrito deBruno = service.alIngresar(8, ana, deAna);
+
+        verify(repository).sumar(8, List.of());
+        assertNull(deBruno.getItem(1));
+        assertEquals(1, deBruno.getItem(3).getCantidad());
+    }
+
+    @Test
+    void vaciarEsperaAlFlushEnCursoDelMismoUsuario() throws InterruptedException {
+        service.registrar(7, 1, new CarritoItem(1, "Polera", new BigDecimal("9990"), 1));
+        Thread[] vaciado = new Thread[1];
+        doAnswer(invocacion -> {
+            // la compra termina y se vacía el carrito mientras se escriben los pendientes
+            vaciado[0] = Thread.ofVirtual().start(() -> service.vaciar(7));
+            vaciado[0].join(200);
+            assertTrue(vaciado[0].isAlive());
+            return null;
+        }).when(repository).guardar(eq(7), anyMap());
+
+        service.escribirPendientes();
+        vaciado[0].join();
+
+        InOrder orden = inOrder(repository);
+        orden.verify(repository).guardar(eq(7), anyMap());
+        orden.verify(repository).vaciar(7);
+    }
+
+    @Test
+    void vaciarDescartaLosPendientes() {
+        service.registrar(7, 1, new CarritoItem(1, "Polera", new BigDecimal("9990"), 1));
+        service.vaciar(7);
+        service.escribirPendientes();
+
+        verify(repository).vaciar(7);
+        verify(repository, never()).guardar(anyInt(), anyMap());
+    }
+}
@@ -0,0 +1,113 @@
+package com.tienda.app.service;
+
+import com.tienda.app.model.BillingMethod;
+import com.tienda.app.model.CarritoItem;
+import com.tienda.app.model.ResultadoCompra;
+import com.tienda.app.model.ResultadoReserva;
+import com.tienda.app.utility.CompraRechazadaException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prueba el flujo del checkout con la base de datos simulada: la orden solo se
+ * confirma si hay stock y cobro, y una clave repetida no vuelve a cobrar.
+ */
+class CompraServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ArticuloService articuloService = mock(ArticuloService.class);
+    private final BankService bankService = mock(BankService.class);
+    private final CompraService service = new CompraService(jdbcTemplate, articuloService, bankService);
+
+    private final BillingMethod tarjeta = new BillingMethod();
+    private final List<CarritoItem> lineas = List.of(new CarritoItem(1, "Producto 1", new BigDecimal("10.00"), 2));
+    private final BigDecimal total = new BigDecimal("20.00");
+
+    @Test
+    void confirmaLaOrdenTrasReservarYCobrar() {
+        doAnswer(inv -> {
+            inv.<KeyHolder>getArgument(1).getKeyList().add(Map.of("id", 42));
+            return 1;
+        }).when(jdbcTemplate).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+        when(articuloService.reservarStock(lineas)).thenReturn(new ResultadoReserva(List.of()));
+        when(bankService.ejecutarTransaccion(tarjeta, total, "clave-1")).thenReturn(true);
+
+        ResultadoCompra compra = service.comprar("clave-1", 7, "Ana", tarjeta, lineas, total);
+
+        assertEquals(42, compra.ordenId());
+        assertFalse(compra.repetida());
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+        verify(jdbcTemplate).update(anyString(), eq(42));
+    }
+
+    @Test
+    void pagoRechazadoNoInsertaLineas() {
+        doAnswer(inv -> {
+            inv.<KeyHolder>getArgument(1).getKeyList().add(Map.of("id", 42));
+            return 1;
+        }).when(jdbcTemplate).update(any(PreparedStatementCreator.class), any(KeyHolder.class));
+        when(articuloService.reservarStock(lineas)).thenReturn(new ResultadoReserva(List.of()));
+        when(bankService.ejecutarTransaccion(tarjeta, total, "clave-1")).thenReturn(false);
+
+        CompraRechazadaException e = assertThrows(CompraRechazadaException.class,
+                () -> service.comprar("clave-1", 7, "Ana", tarjeta, lineas, total));
+
+        assertEquals(CompraRechazadaException.Motivo.PAGO_RECHAZADO, e.getMotivo());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void claveRepetidaDevuelveLaOrdenSinCobrar() {
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class)))
+                .thenThrow(new DuplicateKeyException("order_number"));
+        when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class), eq("clave-1")))
+                .thenReturn(new ResultadoCompra(42, "clave-1", total, true));
+
+        ResultadoCompra compra = service.comprar("clave-1", 7, "Ana", tarjeta, lineas, total);
+
+        assertTrue(compra.repetida());
+        verify(articuloService, never()).reservarStock(anyList());
+        verify(bankService, never()).ejecutarTransaccion(any(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void claveDeOtroUsuarioSeRechazaSinCobrar() throws Exception {
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class), any(KeyHolder.class)))
+                .thenThrow(new DuplicateKeyException("order_number"));
+        ResultSet fila = mock(ResultSet.class);
+        when(fila.getInt("user_id")).thenReturn(8);
+        when(jdbcTemplate.queryForObject(anyString(), any(RowMapper.class), eq("clave-1")))
+                .thenAnswer(inv -> inv.<RowMapper<ResultadoCompra>>getArgument(1).mapRow(fila, 0));
+
+        CompraRechazadaException e = assertThrows(CompraRechazadaException.class,
+                () -> service.comprar("clave-1", 7, "Ana", tarjeta, lineas, total));
+
+        assertEquals(CompraRechazadaException.Motivo.CLAVE_AJENA, e.getMotivo());
+        verify(bankService, never()).ejecutarTransaccion(any(), any(), any());
+    }
+}
@@ -0,0 +1,73 @@
+package com.tienda.app.service;
+
+import com.tienda.app.utility.ServicioNoDisponibleException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba que el pool de hash rechaza de inmediato lo que no cabe en la cola.
+ */
+class ContrasenaServiceTest {
+
+    @Test
+    void rechazaCuandoElPoolEstaSaturado() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        PasswordEncoder lento = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence contrasena) {
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + contrasena;
+            }
+
+            @Override
+            public boolean matches(CharSequence contrasena, String hash) {
+                return encode(contrasena).equals(hash);
+            }
+        };
+        // 1 hilo ocupado + 1 en cola; el resto se rechaza
+        ContrasenaService service = new ContrasenaService(lento, 1, 1, 5_000);
+        ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<String>> pendientes = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                pendientes.add(clientes.submit(() -> service.codificar("clave")));
+                while (service.estadisticas().get("hash.activas") + service.estadisticas().get("hash.enCola") <= i) {
+                    Thread.onSpinWait();
+                }
+            }
+
+            long inicio = System.nanoTime();
+            try {
+                service.verificar("clave", "hash:clave");
+            } catch (ServicioNoDisponibleException e) {
+                // esperado: no se bloquea al llamador
+            }
+            assertTrue((System.nanoTime() - inicio) / 1_000_000 < 100);
+            assertEquals(1L, service.estadisticas().get("hash.rechazos"));
+
+            liberar.countDown();
+            for (Future<String> pendiente : pendientes) {
+                assertEquals("hash:clave", pendiente.get());
+            }
+            assertTrue(service.verificar("clave", "hash:clave"));
+            assertEquals(2L, service.estadisticas().get("hash.codificar.conteo"));
+        } finally {
+            clientes.shutdownNow();
+            service.cerrar();
+        }
+    }
+}
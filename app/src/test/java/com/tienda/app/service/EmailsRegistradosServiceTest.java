@@ -0,0 +1,84 @@
+package com.tienda.app.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prueba que un email registrado en otra instancia no se niegue: antes de
+ * responder "no existe" el filtro se pone al día con los usuarios nuevos.
+ */
+class EmailsRegistradosServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    /** Filas de user_credentials (id, email) que "ve" la base de datos. */
+    private final List<Object[]> usuarios = new ArrayList<>(List.<Object[]>of(new Object[]{1L, "ana@correo.com"}));
+    private int puestasAlDia;
+
+    @Test
+    void incorporaLosRegistrosDeOtraInstanciaAntesDeNegar() throws Exception {
+        EmailsRegistradosService service = nuevo(0);
+        assertTrue(service.podriaExistir("Ána@Correo.com"));
+
+        // otra instancia registra a bea: este filtro no lo sabe, pero se pone al día
+        usuarios.add(new Object[]{2L, "bea@correo.com"});
+        assertTrue(service.podriaExistir("bea@correo.com"));
+        assertFalse(service.podriaExistir("nadie@correo.com"));
+        assertEquals(2, puestasAlDia);
+    }
+
+    @Test
+    void dentroDeLaVentanaNoVuelveAConsultar() throws Exception {
+        EmailsRegistradosService service = nuevo(60_000);
+        assertFalse(service.podriaExistir("nadie@correo.com"));
+        assertFalse(service.podriaExistir("tampoco@correo.com"));
+        assertEquals(1, puestasAlDia);
+
+        // lo registrado por esta misma instancia se ve al instante
+        service.registrar("carla@correo.com");
+        assertTrue(service.podriaExistir("carla@correo.com"));
+    }
+
+    private EmailsRegistradosService nuevo(long sincronizarMs) throws SQLException {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn((long) usuarios.size());
+        doAnswer(invocacion -> {
+            recorrer(invocacion.getArgument(1), 0);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        doAnswer(invocacion -> {
+            puestasAlDia++;
+            recorrer(invocacion.getArgument(1), ((Number) invocacion.getArgument(2)).longValue());
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object.class));
+
+        EmailsRegistradosService service = new EmailsRegistradosService(jdbcTemplate, 1_000, 0.01, sincronizarMs);
+        service.reconstruir();
+        return service;
+    }
+
+    private void recorrer(RowCallbackHandler handler, long desdeId) throws SQLException {
+        for (Object[] fila : usuarios) {
+            if ((long) fila[0] <= desdeId) continue;
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn((long) fila[0]);
+            when(rs.getString(2)).thenReturn((String) fila[1]);
+            handler.processRow(rs);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.tienda.app.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prueba la escritura de pendientes y la reconciliación con la base de datos.
+ */
+class InventarioRayadoServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final InventarioRayadoService service = new InventarioRayadoService(jdbcTemplate, "5", 4);
+
+    @Test
+    void escribeLoVendidoEIncorporaUnaReposicion() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(5))).thenReturn(10);
+        assertTrue(service.descontar(5, 3));
+        assertEquals(7, service.disponible(5));
+
+        // tras escribir las 3 vendidas la base tendría 7; alguien repuso 20 por fuera
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(5))).thenReturn(27);
+        service.escribirPendientes();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> lote = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), lote.capture());
+        assertArrayEquals(new Object[]{3L, 5}, lote.getValue().get(0));
+        assertEquals(27, service.disponible(5));
+        assertEquals(0L, service.estadisticas().get("inventario.rayado.5.pendientes"));
+
+        // una baja manual también se refleja
+        when(jdbcTemplate.queryForObject(anyString(), eq(Integer.class), eq(5))).thenReturn(20);
+        service.escribirPendientes();
+        assertEquals(20, service.disponible(5));
+    }
+}
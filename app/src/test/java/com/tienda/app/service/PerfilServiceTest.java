@@ -0,0 +1,66 @@
+package com.tienda.app.service;
+
+import com.tienda.app.model.BillingMethod;
+import com.tienda.app.model.UserInformation;
+import com.tienda.app.repository.BankRepository;
+import com.tienda.app.repository.BillingMethodRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prueba que el perfil se consulta una sola vez hasta que se invalida y que
+ * las tarjetas se enmascaran sin tocar las entidades de JPA.
+ */
+class PerfilServiceTest {
+
+    private final UserInformationService informacion = mock(UserInformationService.class);
+    private final UserAddressService direcciones = mock(UserAddressService.class);
+    private final BillingMethodService tarjetas = mock(BillingMethodService.class);
+    private final PerfilService service = new PerfilService(informacion, direcciones, tarjetas, 100, 600);
+
+    @Test
+    void sirveDesdeLaCacheHastaQueSeInvalida() {
+        when(tarjetas.findAllByUserId(7)).thenReturn(List.of());
+        assertFalse(service.tienePerfil(7));
+
+        // el usuario crea su perfil: hasta invalidar se sigue viendo el guardado
+        when(informacion.getUserInformationById(7)).thenReturn(new UserInformation());
+        service.obtener(7);
+        service.obtener(7);
+        verify(informacion, times(1)).getUserInformationById(7);
+
+        service.invalidar(7);
+        assertTrue(service.tienePerfil(7));
+        verify(informacion, times(2)).getUserInformationById(7);
+        service.cerrar();
+    }
+
+    @Test
+    void enmascaraCopiasSinModificarLaEntidad() {
+        BillingMethod entidad = new BillingMethod();
+        entidad.setCardNumber("411111111111");
+        entidad.setExpMonth(12);
+        entidad.setExpYear(2030);
+        BillingMethodRepository repositorio = mock(BillingMethodRepository.class);
+        when(repositorio.findAllByUser_Id(7)).thenReturn(List.of(entidad));
+
+        BillingMethod mostrada = new BillingMethodService(repositorio, mock(BankRepository.class))
+                .findAllByUserId(7).get(0);
+
+        assertEquals("41******1111", mostrada.getCardNumber());
+        assertNull(mostrada.getExpMonth());
+        // la entidad administrada queda intacta: un flush no escribiría nada
+        assertEquals("411111111111", entidad.getCardNumber());
+        assertEquals(12, entidad.getExpMonth());
+    }
+}
@@ -0,0 +1,148 @@
+package com.tienda.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import com.tienda.app.model.Pokemon;
+import com.tienda.app.utility.HttpClientConfig;
+import com.tienda.app.utility.ServicioNoDisponibleException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba PokeService contra un servidor HTTP local que imita la PokeAPI
+ * con latencia artificial en cada detalle.
+ */
+class PokeServiceTest {
+
+    private static final int CANTIDAD = 20;
+    private static final int LATENCIA_MS = 200;
+    private static final int ID_LENTO = 7;
+    private static final int ID_CAIDA = 500;
+
+    private HttpServer servidor;
+    private String base;
+    private volatile boolean lentoRecuperado;
+
+    @BeforeEach
+    void iniciarServidor() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        base = "http://127.0.0.1:" + servidor.getAddress().getPort() + "/pokemon";
+
+        servidor.createContext("/pokemon", intercambio -> {
+            String ruta = intercambio.getRequestURI().getPath();
+            String json;
+            if (ruta.equals("/pokemon")) {
+                StringBuilder sb = new StringBuilder("{\"count\":" + CANTIDAD + ",\"results\":[");
+                for (int i = 1; i <= CANTIDAD; i++) {
+                    if (i > 1) sb.append(',');
+                    sb.append("{\"name\":\"poke").append(i).append("\",\"url\":\"")
+                            .append(base).append('/').append(i).append("/\"}");
+                }
+                json = sb.append("]}").toString();
+            } else {
+                int id = Integer.parseInt(ruta.replaceAll("\\D", ""));
+                if (id > CANTIDAD) {
+                    // ids desconocidos: 404; el 500 imita una caída de la API
+                    intercambio.sendResponseHeaders(id == ID_CAIDA ? 500 : 404, -1);
+                    intercambio.close();
+                    return;
+                }
+                dormir(id == ID_LENTO && !lentoRecuperado ? 5_000 : LATENCIA_MS);
+                json = "{\"id\":" + id + ",\"name\":\"poke" + id + "\",\"height\":7,\"weight\":69,\"moves\":[{\"move\":{\"name\":\"tackle\"}}],"
+                        + "\"sprites\":{\"front_default\":\"http://img/" + id + ".png\"}}";
+            }
+            byte[] cuerpo = json.getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().add("Content-Type", "application/json");
+            intercambio.sendResponseHeaders(200, cuerpo.length);
+            try (OutputStream os = intercambio.getResponseBody()) {
+                os.write(cuerpo);
+            } catch (IOException ignored) {
+                // el cliente puede cerrar la conexión al vencer su timeout
+            }
+        });
+        servidor.start();
+    }
+
+    @AfterEach
+    void detenerServidor() {
+        servidor.stop(0);
+    }
+
+    @Test
+    void descargaEnParaleloYDevuelveResultadoParcial() {
+        HttpClientConfig http = new HttpClientConfig();
+        PokeService service = new PokeService(base, CANTIDAD, 3_000, 100, 60, "", 50, 30_000, 4, 50,
+                http.restTemplate(http.httpClient(1_000), 1_000, CANTIDAD), new ObjectMapper());
+        try {
+            long inicio = System.nanoTime();
+            List<Pokemon> pokemons = service.obtenerPokemones(String.valueOf(CANTIDAD));
+            long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+
+            // el detalle lento supera el timeout por petición y se omite
+            assertEquals(CANTIDAD - 1, pokemons.size());
+            assertTrue(pokemons.stream().noneMatch(p -> p.getId() == ID_LENTO));
+            assertEquals("http://img/1.png", pokemons.get(0).getImage());
+
+            // secuencialmente serían CANTIDAD * LATENCIA_MS (4 s) más el timeout del lento
+            assertTrue(duracionMs < 2_500, "duración: " + duracionMs + " ms");
+
+            // la lista parcial no se guardó: se reintenta y solo se pide el detalle que faltó
+            lentoRecuperado = true;
+            assertEquals(CANTIDAD, service.obtenerPokemones(String.valueOf(CANTIDAD)).size());
+            assertEquals(0L, service.estadisticas().get("listas.aciertos"));
+            assertEquals(CANTIDAD - 1L, service.estadisticas().get("pokemon.aciertos"));
+
+            // la lista completa sí se guarda: la siguiente carga no toca el servidor
+            inicio = System.nanoTime();
+            assertEquals(CANTIDAD, service.obtenerPokemones(String.valueOf(CANTIDAD)).size());
+            assertTrue((System.nanoTime() - inicio) / 1_000_000 < LATENCIA_MS);
+            assertEquals(1L, service.estadisticas().get("listas.aciertos"));
+        } finally {
+            service.cerrar();
+        }
+    }
+
+    @Test
+    void losIdsDesconocidosNoAbrenElCircuitoPeroLosErroresDelServidorSi() {
+        HttpClientConfig http = new HttpClientConfig();
+        PokeService service = new PokeService(base, CANTIDAD, 3_000, 100, 60, "", 2, 30_000, 4, 50,
+                http.restTemplate(http.httpClient(1_000), 1_000, CANTIDAD), new ObjectMapper());
+        try {
+            for (int i = 0; i < 5; i++) {
+                assertNull(service.obtenerPokemon(String.valueOf(900 + i)));
+            }
+            assertEquals("poke1", service.obtenerPokemon("1").getName());
+
+            for (int i = 0; i < 2; i++) {
+                assertThrows(ServicioNoDisponibleException.class,
+                        () -> service.obtenerPokemon(String.valueOf(ID_CAIDA)));
+            }
+            // circuito abierto: ni siquiera se intenta
+            assertThrows(ServicioNoDisponibleException.class, () -> service.obtenerPokemon("2"));
+        } finally {
+            service.cerrar();
+        }
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
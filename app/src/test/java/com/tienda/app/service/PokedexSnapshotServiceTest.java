@@ -0,0 +1,116 @@
+package com.tienda.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tienda.app.model.Pokemon;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prueba que un resultado parcial no reemplace un snapshot más completo, que
+ * el snapshot guardado en disco se use al arrancar y que la reconstrucción no
+ * retenga al planificador.
+ */
+class PokedexSnapshotServiceTest {
+
+    @TempDir
+    Path directorio;
+
+    private final PokeService pokeService = mock(PokeService.class);
+
+    @Test
+    void unResultadoParcialNoReemplazaAlCompleto() {
+        PokedexSnapshotService service = nuevo("");
+        assertTrue(service.isDegradado());
+
+        // primer arranque sin nada: un parcial es mejor que nada
+        when(pokeService.recargarPokemones("200")).thenReturn(pokemones(56));
+        service.recargar();
+        assertEquals(56, service.obtener(200).size());
+
+        when(pokeService.recargarPokemones("200")).thenReturn(pokemones(200));
+        service.recargar();
+        assertEquals(200, service.obtener(200).size());
+
+        when(pokeService.recargarPokemones("200")).thenReturn(pokemones(56));
+        service.recargar();
+        assertEquals(200, service.obtener(200).size());
+
+        when(pokeService.recargarPokemones("200")).thenReturn(List.of());
+        service.recargar();
+        assertEquals(200, service.obtener(200).size());
+    }
+
+    @Test
+    void arrancaConElSnapshotGuardadoEnDisco() {
+        String archivo = directorio.resolve("pokedex.json").toString();
+        when(pokeService.recargarPokemones("200")).thenReturn(pokemones(200));
+        nuevo(archivo).recargar();
+
+        // otra instancia, con la PokeAPI caída
+        when(pokeService.recargarPokemones("200")).thenThrow(new IllegalStateException("sin red"));
+        PokedexSnapshotService reiniciado = nuevo(archivo);
+        reiniciado.cargarDesdeDisco();
+        reiniciado.recargar();
+
+        assertFalse(reiniciado.isDegradado());
+        assertEquals(55, reiniciado.obtener(55).size());
+    }
+
+    @Test
+    void laTareaProgramadaNoEsperaALaReconstruccion() throws InterruptedException {
+        PokedexSnapshotService service = nuevo("");
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch empezo = new CountDownLatch(1);
+        when(pokeService.recargarPokemones("200")).thenAnswer(invocacion -> {
+            empezo.countDown();
+            liberar.await();
+            return pokemones(200);
+        });
+        try {
+            long inicio = System.nanoTime();
+            service.programarRecarga();
+            assertTrue(empezo.await(1, TimeUnit.SECONDS));
+            // una segunda pasada mientras la primera sigue en curso no encola otra
+            service.programarRecarga();
+            assertTrue(System.nanoTime() - inicio < TimeUnit.MILLISECONDS.toNanos(500));
+            assertTrue(service.isDegradado());
+
+            liberar.countDown();
+            for (int i = 0; i < 100 && service.isDegradado(); i++) {
+                Thread.sleep(10);
+            }
+            assertFalse(service.isDegradado());
+            verify(pokeService, times(1)).recargarPokemones("200");
+        } finally {
+            liberar.countDown();
+            service.cerrar();
+        }
+    }
+
+    private PokedexSnapshotService nuevo(String archivo) {
+        return new PokedexSnapshotService(pokeService, new ObjectMapper(), 200, 55, archivo);
+    }
+
+    private static List<Pokemon> pokemones(int cantidad) {
+        return IntStream.rangeClosed(1, cantidad).mapToObj(id -> {
+            Pokemon pokemon = new Pokemon();
+            pokemon.setId(id);
+            pokemon.setName("poke" + id);
+            return pokemon;
+        }).toList();
+    }
+}
@@ -0,0 +1,67 @@
+package com.tienda.app.service;
+
+import com.tienda.app.model.ArticuloTarjeta;
+import com.tienda.app.model.Carrito;
+import com.tienda.app.model.CarritoItem;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prueba los precios resueltos desde las tarjetas y la revisión del carrito antes de pagar.
+ */
+class PreciosServiceTest {
+
+    private static final LocalDateTime ANTES = LocalDateTime.of(2026, 1, 1, 10, 0);
+    private static final LocalDateTime DESPUES = ANTES.plusMinutes(5);
+
+    private final ArticuloService articuloService = mock(ArticuloService.class);
+    private final PreciosService service = new PreciosService(articuloService);
+
+    @Test
+    void soloSeRevisanLasLineasDeVersionesAnteriores() {
+        when(articuloService.buscarTarjeta(1)).thenReturn(Optional.of(tarjeta(1, "9990", ANTES)));
+        when(articuloService.buscarTarjeta(2)).thenReturn(Optional.of(tarjeta(2, "4500", ANTES)));
+        Carrito carrito = new Carrito();
+        carrito.agregar(service.resolver(1).orElseThrow(), 2);
+        carrito.agregar(service.resolver(2).orElseThrow(), 1);
+
+        // nada cambió: nada que revisar
+        assertTrue(service.actualizarCarrito(carrito).isEmpty());
+
+        // sube el precio del producto 2 y se retira el 1
+        when(articuloService.buscarTarjeta(1)).thenReturn(Optional.empty());
+        when(articuloService.buscarTarjeta(2)).thenReturn(Optional.of(tarjeta(2, "5000", DESPUES)));
+
+        List<CarritoItem> cambiadas = service.actualizarCarrito(carrito);
+        assertEquals(2, cambiadas.size());
+        assertEquals(new BigDecimal("5000.00"), carrito.getTotal());
+        assertEquals(tarjeta(2, "5000", DESPUES).version(), carrito.getItem(2).getVersionPrecio());
+        assertTrue(service.actualizarCarrito(carrito).isEmpty());
+    }
+
+    @Test
+    void otraVersionConElMismoPrecioNoEsUnCambio() {
+        when(articuloService.buscarTarjeta(1)).thenReturn(Optional.of(tarjeta(1, "9990", ANTES)));
+        Carrito carrito = new Carrito();
+        carrito.agregar(service.resolver(1).orElseThrow(), 1);
+
+        // la fila cambió por otra cosa (stock), el precio sigue igual
+        when(articuloService.buscarTarjeta(1)).thenReturn(Optional.of(tarjeta(1, "9990", DESPUES)));
+
+        assertTrue(service.actualizarCarrito(carrito).isEmpty());
+        assertEquals(tarjeta(1, "9990", DESPUES).version(), carrito.getItem(1).getVersionPrecio());
+    }
+
+    private static ArticuloTarjeta tarjeta(int id, String precio, LocalDateTime modificado) {
+        return new ArticuloTarjeta(id, "Producto " + id, new BigDecimal(precio), "/img/" + id + ".png", 10, modificado);
+    }
+}
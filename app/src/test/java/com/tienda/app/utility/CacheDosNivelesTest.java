@@ -0,0 +1,49 @@
+package com.tienda.app.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Prueba que una carga en curso no vuelva a guardar un valor ya invalidado.
+ */
+class CacheDosNivelesTest {
+
+    private final CacheDosNiveles<Integer, String> cache =
+            new CacheDosNiveles<>("prueba", 10, Duration.ofMinutes(5), Runnable::run);
+
+    @Test
+    void unaCargaQueCruzaUnaInvalidacionNoSeGuarda() {
+        // la carga lee el valor viejo y, antes de que termine, otro hilo confirma un cambio e invalida
+        String leido = cache.obtener(1, clave -> {
+            cache.invalidar(clave);
+            return "viejo";
+        });
+
+        assertEquals("viejo", leido);
+        assertNull(cache.consultar(1));
+        assertEquals(1L, cache.estadisticas().get("prueba.cargasDescartadas"));
+        assertEquals("nuevo", cache.obtener(1, clave -> "nuevo"));
+        assertEquals("nuevo", cache.consultar(1));
+    }
+
+    @Test
+    void unaRecargaEnSegundoPlanoTampocoPisaLaInvalidacion() {
+        CacheDosNiveles<Integer, String> vencida = new CacheDosNiveles<>("prueba", 10, Duration.ZERO, Runnable::run);
+        vencida.guardar(1, "viejo");
+        AtomicReference<String> recargado = new AtomicReference<>();
+
+        vencida.obtener(1, clave -> {
+            vencida.invalidar(clave);
+            recargado.set("viejo-recargado");
+            return recargado.get();
+        });
+
+        assertEquals("viejo-recargado", recargado.get());
+        assertNull(vencida.consultar(1));
+    }
+}
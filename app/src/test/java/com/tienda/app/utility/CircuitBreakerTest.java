@@ -0,0 +1,49 @@
+package com.tienda.app.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Prueba las transiciones del circuito: cerrado → abierto → semiabierto → cerrado/abierto.
+ */
+class CircuitBreakerTest {
+
+    @Test
+    void seAbreTrasLosFallosYPruebaUnaSolaLlamadaAlVencer() throws InterruptedException {
+        CircuitBreaker circuito = new CircuitBreaker("prueba", 3, Duration.ofMillis(50));
+
+        // fallos no consecutivos no lo abren
+        circuito.registrarFallo();
+        circuito.registrarFallo();
+        circuito.registrarExito();
+        circuito.registrarFallo();
+        assertEquals(CircuitBreaker.Estado.CERRADO, circuito.getEstado());
+
+        circuito.registrarFallo();
+        circuito.registrarFallo();
+        assertEquals(CircuitBreaker.Estado.ABIERTO, circuito.getEstado());
+        assertThrows(ServicioNoDisponibleException.class, circuito::verificar);
+
+        // vencido el tiempo pasa una sola llamada de prueba; si falla se vuelve a abrir
+        Thread.sleep(60);
+        assertDoesNotThrow(circuito::verificar);
+        assertEquals(CircuitBreaker.Estado.SEMIABIERTO, circuito.getEstado());
+        assertThrows(ServicioNoDisponibleException.class, circuito::verificar);
+        circuito.registrarFallo();
+        assertEquals(CircuitBreaker.Estado.ABIERTO, circuito.getEstado());
+
+        // la siguiente prueba funciona y el circuito se cierra
+        Thread.sleep(60);
+        circuito.verificar();
+        circuito.registrarExito();
+        assertEquals(CircuitBreaker.Estado.CERRADO, circuito.getEstado());
+        assertDoesNotThrow(circuito::verificar);
+        assertEquals(2L, circuito.estadisticas().get("prueba.rechazos"));
+        assertEquals(2L, circuito.estadisticas().get("prueba.aperturas"));
+    }
+}
@@ -0,0 +1,34 @@
+package com.tienda.app.utility;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba el filtro de Bloom con 1 millón de emails: sin falsos negativos y con la
+ * tasa de falsos positivos cerca de la configurada.
+ */
+class FiltroBloomTest {
+
+    private static final int USUARIOS = 1_000_000;
+
+    @Test
+    void sinFalsosNegativosYConFalsosPositivosAcotados() {
+        FiltroBloom filtro = new FiltroBloom(USUARIOS, 0.01);
+        for (int i = 0; i < USUARIOS; i++) {
+            filtro.agregar("usuario" + i + "@tienda.com");
+        }
+
+        for (int i = 0; i < USUARIOS; i += 97) {
+            assertTrue(filtro.podriaContener("usuario" + i + "@tienda.com"));
+        }
+
+        int falsosPositivos = 0;
+        int consultas = 200_000;
+        for (int i = 0; i < consultas; i++) {
+            if (filtro.podriaContener("otro" + i + "@correo.com")) falsosPositivos++;
+        }
+        double tasa = (double) falsosPositivos / consultas;
+        assertTrue(tasa < 0.015, "tasa de falsos positivos: " + tasa);
+    }
+}
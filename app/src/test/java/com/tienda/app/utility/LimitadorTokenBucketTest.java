@@ -0,0 +1,96 @@
+package com.tienda.app.utility;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba la ráfaga por clave, el aislamiento entre claves y el límite de memoria.
+ */
+class LimitadorTokenBucketTest {
+
+    @Test
+    void rechazaElExcesoPorClaveSinAfectarALasDemas() {
+        LimitadorTokenBucket limitador = new LimitadorTokenBucket("prueba", 3, 1, 4, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limitador.permitir("a@x.com"));
+        }
+        assertFalse(limitador.permitir("a@x.com"));
+        assertTrue(limitador.permitir("b@x.com"));
+
+        assertEquals(4L, limitador.estadisticas().get("prueba.permitidos"));
+        assertEquals(1L, limitador.estadisticas().get("prueba.rechazados"));
+    }
+
+    @Test
+    void mantieneAcotadaLaCantidadDeClaves() {
+        LimitadorTokenBucket limitador = new LimitadorTokenBucket("prueba", 1, 1, 4, 40);
+
+        for (int i = 0; i < 1_000; i++) {
+            limitador.permitir("10.0.0." + i);
+        }
+
+        assertTrue(limitador.estadisticas().get("prueba.claves") <= 40);
+        assertTrue(limitador.estadisticas().get("prueba.sin-lugar") >= 960);
+    }
+
+    @Test
+    void inundarConClavesNuevasNoReiniciaUnaClaveLimitada() {
+        LimitadorTokenBucket limitador = new LimitadorTokenBucket("prueba", 2, 1, 1, 10);
+
+        assertTrue(limitador.permitir("victima@x.com"));
+        assertTrue(limitador.permitir("victima@x.com"));
+        assertFalse(limitador.permitir("victima@x.com"));
+
+        for (int i = 0; i < 100; i++) {
+            limitador.permitir("relleno" + i + "@x.com");
+        }
+
+        assertFalse(limitador.permitir("victima@x.com"));
+        assertEquals(0L, limitador.estadisticas().get("prueba.desalojos"));
+    }
+
+    @Test
+    void unaCubetaRecargadaSeDesalojaParaDarLugar() throws InterruptedException {
+        // 300 por minuto: una ficha cada 200 ms
+        LimitadorTokenBucket limitador = new LimitadorTokenBucket("prueba", 1, 300, 1, 1);
+
+        assertTrue(limitador.permitir("a@x.com"));
+        assertFalse(limitador.permitir("b@x.com"));
+        Thread.sleep(250);
+
+        assertTrue(limitador.permitir("b@x.com"));
+        assertEquals(1L, limitador.estadisticas().get("prueba.desalojos"));
+    }
+
+    @Test
+    void elAlmacenCompartidoCuentaPorVentana() {
+        LimitadorKv limitador = new LimitadorKv("prueba", new ClienteKvLocal(), 2, 60_000);
+
+        assertTrue(limitador.permitir("10.0.0.1"));
+        assertTrue(limitador.permitir("10.0.0.1"));
+        assertFalse(limitador.permitir("10.0.0.1"));
+        assertTrue(limitador.permitir("10.0.0.2"));
+    }
+
+    @Test
+    void reiniciarDevuelveLaCapacidadCompleta() {
+        LimitadorTokenBucket enMemoria = new LimitadorTokenBucket("prueba", 2, 1, 1, 10);
+        LimitadorKv compartido = new LimitadorKv("prueba", new ClienteKvLocal(), 2, 60_000);
+
+        for (LimitadorIntentos limitador : new LimitadorIntentos[]{enMemoria, compartido}) {
+            assertTrue(limitador.permitir("a@x.com"));
+            assertTrue(limitador.permitir("a@x.com"));
+            assertFalse(limitador.permitir("a@x.com"));
+
+            // por ejemplo, un ingreso correcto tras dos contraseñas erróneas
+            limitador.reiniciar("a@x.com");
+            assertTrue(limitador.permitir("a@x.com"));
+            assertTrue(limitador.permitir("a@x.com"));
+            assertFalse(limitador.permitir("a@x.com"));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.tienda.app.utility;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba que el motor acepta hashes viejos y detecta los que hay que recalcular.
+ */
+class MotorHashTest {
+
+    @Test
+    void aceptaHashesSinPrefijoYPideRecalcularSiCambiaElCosto() {
+        MotorHash motor = new MotorHash(MotorHash.BCRYPT, 5, 19456, 2, 1);
+        String viejo = new BCryptPasswordEncoder(4).encode("1234");
+
+        assertTrue(motor.matches("1234", viejo));
+        assertFalse(motor.matches("4321", viejo));
+        assertTrue(motor.upgradeEncoding(viejo));
+
+        String nuevo = motor.encode("1234");
+        assertTrue(nuevo.startsWith("{bcrypt}$2a$05$"));
+        assertTrue(motor.matches("1234", nuevo));
+        assertFalse(motor.upgradeEncoding(nuevo));
+
+        // también se recalcula si el costo configurado baja
+        assertTrue(new MotorHash(MotorHash.BCRYPT, 4, 19456, 2, 1).upgradeEncoding(nuevo));
+    }
+
+    @Test
+    void argon2SinBouncyCastleFallaAlConfigurar() {
+        if (MotorHash.argon2Disponible()) return;
+        assertThrows(IllegalStateException.class, () -> new MotorHash(MotorHash.ARGON2, 12, 19456, 2, 1));
+    }
+}
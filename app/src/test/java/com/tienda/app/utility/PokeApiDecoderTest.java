@@ -0,0 +1,48 @@
+package com.tienda.app.utility;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.tienda.app.model.Pokemon;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Prueba que valores inesperados en el detalle no desalineen el recorrido.
+ */
+class PokeApiDecoderTest {
+
+    private final PokeApiDecoder decoder = new PokeApiDecoder(new JsonFactory());
+
+    @Test
+    void spritesQueNoEsObjetoSeSaltaCompleto() throws IOException {
+        Pokemon p = leer("""
+                {"id": 25, "sprites": [{"front_default": "x"}, 1], "name": "pikachu", "weight": 60}""");
+
+        assertEquals(25, p.getId());
+        assertNull(p.getImage());
+        assertEquals("pikachu", p.getName());
+        assertEquals(60, p.getWeight());
+    }
+
+    @Test
+    void camposNumericosNulosQuedanEnCero() throws IOException {
+        Pokemon p = leer("""
+                {"id": 1, "height": null, "weight": {"kg": 6}, "name": null,
+                 "sprites": {"front_default": "img.png"}}""");
+
+        assertEquals(1, p.getId());
+        assertEquals(0, p.getHeight());
+        assertEquals(0, p.getWeight());
+        assertNull(p.getName());
+        assertEquals("img.png", p.getImage());
+    }
+
+    private Pokemon leer(String json) throws IOException {
+        return decoder.leerDetalle(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
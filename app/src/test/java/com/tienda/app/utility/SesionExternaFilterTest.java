@@ -0,0 +1,90 @@
+package com.tienda.app.utility;
+
+import com.tienda.app.model.Carrito;
+import com.tienda.app.model.UsuarioSesion;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Prueba el filtro de sesiones externas con el almacén en archivos.
+ */
+class SesionExternaFilterTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void laSesionSobreviveEntrePeticionesYSoloSeEscribeSiCambia() throws Exception {
+        SesionExternaFilter filtro = new SesionExternaFilter(new AlmacenSesionesArchivo(directorio),
+                new SerializadorSesion(), "SESION", false, 1800);
+
+        // 1. login + carrito
+        String id = ejecutar(filtro, null, request -> {
+            UsuarioSesion usuario = new UsuarioSesion(7, "ana@correo.com", "user", true);
+            Carrito carrito = new Carrito();
+            carrito.agregar(1, "Polera", new BigDecimal("9990.50"), 2);
+            request.getSession().setAttribute("usuarioLog", usuario);
+            request.getSession().setAttribute("carrito", carrito);
+        });
+        assertEquals(1L, filtro.estadisticas().get("sesiones.escrituras"));
+
+        // 2. otra instancia (mismo almacén) solo lee: no se reescribe
+        ejecutar(filtro, id, request -> {
+            Carrito carrito = (Carrito) request.getSession().getAttribute("carrito");
+            assertEquals(new BigDecimal("19981.00"), carrito.getTotal());
+            assertEquals(new UsuarioSesion(7, "ana@correo.com", "user", true),
+                    request.getSession().getAttribute("usuarioLog"));
+        });
+        assertEquals(1L, filtro.estadisticas().get("sesiones.escrituras"));
+        assertEquals(1L, filtro.estadisticas().get("sesiones.escriturasOmitidas"));
+
+        // 3. logout: la sesión desaparece del almacén
+        ejecutar(filtro, id, request -> request.getSession().invalidate());
+        ejecutar(filtro, id, request -> assertNull(request.getSession(false)));
+    }
+
+    @Test
+    void cambiarElIdMueveLaSesionYOlvidaElViejo() throws Exception {
+        SesionExternaFilter filtro = new SesionExternaFilter(new AlmacenSesionesArchivo(directorio),
+                new SerializadorSesion(), "SESION", false, 1800);
+
+        String viejo = ejecutar(filtro, null, request -> request.getSession().setAttribute("carrito", new Carrito()));
+        String nuevo = ejecutar(filtro, viejo, HttpServletRequest::changeSessionId);
+
+        assertNotEquals(viejo, nuevo);
+        ejecutar(filtro, nuevo, request -> assertNotNull(request.getSession().getAttribute("carrito")));
+        ejecutar(filtro, viejo, request -> assertNull(request.getSession(false)));
+    }
+
+    private static String ejecutar(SesionExternaFilter filtro, String id, Consumer<HttpServletRequest> controlador)
+            throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (id != null) request.setCookies(new Cookie("SESION", id));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String[] idSesion = {id};
+        filtro.doFilter(request, response, new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest req, jakarta.servlet.ServletResponse res) {
+                HttpServletRequest peticion = (HttpServletRequest) req;
+                controlador.accept(peticion);
+                if (peticion.getSession(false) != null) idSesion[0] = peticion.getSession(false).getId();
+            }
+        });
+        assertNotNull(idSesion[0]);
+        return idSesion[0];
+    }
+}
@@ -0,0 +1,109 @@
+package com.tienda.app.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba que las cargas concurrentes se agrupen y que la espera de quienes se
+ * unen quede acotada aunque el líder sea lento.
+ */
+class SingleFlightTest {
+
+    @Test
+    void lasCargasConcurrentesSeEjecutanUnaSolaVez() throws Exception {
+        SingleFlight<String, Integer> vuelos = new SingleFlight<>("prueba", Duration.ofSeconds(5));
+        AtomicInteger ejecuciones = new AtomicInteger();
+        CountDownLatch liderAdentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Integer> lider = executor.submit(() -> vuelos.ejecutar("lista", () -> {
+                liderAdentro.countDown();
+                esperar(soltar);
+                return ejecuciones.incrementAndGet();
+            }));
+            liderAdentro.await();
+            Future<Integer> seguidor = executor.submit(() -> vuelos.ejecutar("lista", ejecuciones::incrementAndGet));
+            while (vuelos.estadisticas().get("prueba.agrupadas") == 0) Thread.onSpinWait();
+            soltar.countDown();
+
+            assertEquals(1, lider.get());
+            assertEquals(1, seguidor.get());
+        }
+        assertEquals(1L, vuelos.estadisticas().get("prueba.ejecuciones"));
+    }
+
+    @Test
+    void quienSeUneNoEsperaMasQueElPlazo() throws Exception {
+        SingleFlight<String, Integer> vuelos = new SingleFlight<>("prueba", Duration.ofMillis(50));
+        CountDownLatch liderAdentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Integer> lider = executor.submit(() -> vuelos.ejecutar("lista", () -> {
+                liderAdentro.countDown();
+                esperar(soltar);
+                return 1;
+            }));
+            liderAdentro.await();
+
+            long inicio = System.nanoTime();
+            assertThrows(ServicioNoDisponibleException.class, () -> vuelos.ejecutar("lista", () -> 2));
+            assertTrue((System.nanoTime() - inicio) / 1_000_000 < 1_000);
+            assertEquals(1L, vuelos.estadisticas().get("prueba.esperasVencidas"));
+
+            soltar.countDown();
+            assertEquals(1, lider.get());
+        }
+    }
+
+    @Test
+    void unErrorDelLiderLiberaAQuienesSeUnieron() throws Exception {
+        SingleFlight<String, Integer> vuelos = new SingleFlight<>("prueba", Duration.ofSeconds(5));
+        CountDownLatch liderAdentro = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Integer> lider = executor.submit(() -> vuelos.ejecutar("lista", () -> {
+                liderAdentro.countDown();
+                esperar(soltar);
+                throw new OutOfMemoryError("prueba");
+            }));
+            liderAdentro.await();
+            Future<Integer> seguidor = executor.submit(() -> vuelos.ejecutar("lista", () -> 2));
+            while (vuelos.estadisticas().get("prueba.agrupadas") == 0) Thread.onSpinWait();
+            soltar.countDown();
+
+            ExecutionException delLider = assertThrows(ExecutionException.class, lider::get);
+            assertInstanceOf(OutOfMemoryError.class, delLider.getCause());
+            ExecutionException delSeguidor = assertThrows(ExecutionException.class,
+                    () -> seguidor.get(1, TimeUnit.SECONDS));
+            assertInstanceOf(OutOfMemoryError.class, delSeguidor.getCause());
+        }
+
+        // la clave quedó libre: la siguiente carga se ejecuta
+        assertEquals(0L, vuelos.estadisticas().get("prueba.enCurso"));
+        assertEquals(3, vuelos.ejecutar("lista", () -> 3));
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
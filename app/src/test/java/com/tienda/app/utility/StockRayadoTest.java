@@ -0,0 +1,55 @@
+package com.tienda.app.utility;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba que el stock repartido en franjas no venda de más bajo concurrencia.
+ */
+class StockRayadoTest {
+
+    @Test
+    void cientosDeCompradoresNoVendenDeMas() throws Exception {
+        int stock = 300;
+        int compradores = 1_000;
+        StockRayado rayado = new StockRayado(stock, 8);
+        CountDownLatch largada = new CountDownLatch(1);
+
+        List<Future<Boolean>> compras = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < compradores; i++) {
+                compras.add(executor.submit(() -> {
+                    largada.await();
+                    return rayado.descontar(1);
+                }));
+            }
+            largada.countDown();
+        }
+
+        int vendidas = 0;
+        for (Future<Boolean> compra : compras) {
+            if (compra.get()) vendidas++;
+        }
+        assertEquals(stock, vendidas);
+        assertEquals(0, rayado.disponible());
+    }
+
+    @Test
+    void rebalanceaEntreFranjasYDevuelveSiNoAlcanza() {
+        StockRayado rayado = new StockRayado(10, 4); // franjas de 3, 3, 2, 2
+
+        assertTrue(rayado.descontar(7));   // ninguna franja alcanza sola
+        assertFalse(rayado.descontar(4));  // quedan 3: no se toma nada
+        assertEquals(3, rayado.disponible());
+    }
+}